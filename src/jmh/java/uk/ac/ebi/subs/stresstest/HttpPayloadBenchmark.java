@@ -0,0 +1,131 @@
+package uk.ac.ebi.subs.stresstest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.subs.data.Submission;
+import uk.ac.ebi.subs.data.client.Sample;
+import uk.ac.ebi.subs.stresstest.generator.BenchmarkSubmissions;
+import uk.ac.ebi.subs.stresstest.payload.PayloadBuffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Per-request CPU and allocation on the client: parsing a HAL response with the converter the rest template uses, and
+ * serializing an item request body with the rest template's JSON converter, with the plain mapper the async
+ * transport uses, and into a pooled buffer as with payload.pooled.
+ */
+@State(Scope.Benchmark)
+public class HttpPayloadBenchmark {
+
+    private static final Type SUBMISSION_RESOURCE = new ParameterizedTypeReference<Resource<Submission>>() {
+    }.getType();
+    private static final String SUBMISSION_LINK = "http://localhost:8080/api/submissions/0b1e6a7c-4a52-4b0f-a7a4-5d4c1c7e2f10";
+
+    private GenericHttpMessageConverter<Object> halConverter;
+    private MappingJackson2HttpMessageConverter jsonConverter;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private byte[] halResponse;
+    private Sample sample;
+    private PayloadBuffer buffer;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        halConverter = (GenericHttpMessageConverter<Object>) StressTesterConfig.getHalMessageConverter();
+        for (HttpMessageConverter<?> converter : new RestTemplate().getMessageConverters()) {
+            if (converter instanceof MappingJackson2HttpMessageConverter) {
+                jsonConverter = (MappingJackson2HttpMessageConverter) converter;
+            }
+        }
+
+        halResponse = ("{\"id\":\"0b1e6a7c-4a52-4b0f-a7a4-5d4c1c7e2f10\",\"team\":{\"name\":\"benchmark-team-0\"},"
+                + "\"submissionDate\":null,"
+                + "\"_links\":{"
+                + "\"self\":{\"href\":\"http://localhost:8080/api/submissions/0b1e6a7c-4a52-4b0f-a7a4-5d4c1c7e2f10\"},"
+                + "\"submissionStatus\":{\"href\":\"http://localhost:8080/api/submissions/0b1e6a7c-4a52-4b0f-a7a4-5d4c1c7e2f10/submissionStatus\"},"
+                + "\"contents\":{\"href\":\"http://localhost:8080/api/submissions/0b1e6a7c-4a52-4b0f-a7a4-5d4c1c7e2f10/contents\"}"
+                + "}}").getBytes();
+
+        sample = BenchmarkSubmissions.generate(3).getSamples().get(0);
+        sample.setSubmission(SUBMISSION_LINK);
+        buffer = new PayloadBuffer(4096);
+    }
+
+    @Benchmark
+    public Object parseHalResource() throws IOException {
+        return halConverter.read(SUBMISSION_RESOURCE, null, new BytesInputMessage(halResponse, MediaTypes.HAL_JSON));
+    }
+
+    @Benchmark
+    public byte[] serializeItemWithRestTemplateConverter() throws IOException {
+        BytesOutputMessage output = new BytesOutputMessage();
+        jsonConverter.write(sample, MediaType.APPLICATION_JSON, output);
+        return output.body.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] serializeItemWithObjectMapper() throws IOException {
+        return mapper.writeValueAsBytes(sample);
+    }
+
+    @Benchmark
+    public int serializeItemIntoBuffer() throws IOException {
+        buffer.clear();
+        mapper.writeValue(buffer, sample);
+        return buffer.size();
+    }
+
+    private static class BytesInputMessage implements HttpInputMessage {
+        private final byte[] body;
+        private final HttpHeaders headers = new HttpHeaders();
+
+        BytesInputMessage(byte[] body, MediaType contentType) {
+            this.body = body;
+            headers.setContentType(contentType);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    private static class BytesOutputMessage implements HttpOutputMessage {
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+        private final HttpHeaders headers = new HttpHeaders();
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
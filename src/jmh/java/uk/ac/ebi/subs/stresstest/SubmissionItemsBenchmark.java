@@ -0,0 +1,36 @@
+package uk.ac.ebi.subs.stresstest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ebi.subs.stresstest.generator.BenchmarkSubmissions;
+
+/**
+ * Walking the items of a large submission: the copied list against the stream.
+ */
+@State(Scope.Benchmark)
+public class SubmissionItemsBenchmark {
+
+    @Param({"1000", "50000"})
+    int items;
+
+    private ClientCompleteSubmission submission;
+
+    @Setup
+    public void generate() {
+        submission = BenchmarkSubmissions.generate(items);
+    }
+
+    @Benchmark
+    public void allSubmissionItems(Blackhole blackhole) {
+        submission.allSubmissionItems().forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void allSubmissionItemsStream(Blackhole blackhole) {
+        submission.allSubmissionItemsStream().forEach(blackhole::consume);
+    }
+}
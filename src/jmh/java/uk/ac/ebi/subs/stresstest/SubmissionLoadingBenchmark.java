@@ -0,0 +1,66 @@
+package uk.ac.ebi.subs.stresstest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ebi.subs.data.Submission;
+import uk.ac.ebi.subs.data.submittable.Submittable;
+import uk.ac.ebi.subs.stresstest.generator.BenchmarkSubmissions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Loading a submission file: whole-file deserialization with loadSubmission against the streaming loader.
+ */
+@State(Scope.Benchmark)
+public class SubmissionLoadingBenchmark {
+
+    @Param({"1000", "50000"})
+    int items;
+
+    private final StressTestServiceImpl service = new StressTestServiceImpl();
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        file = Files.createTempFile("benchmark-submission", ".json");
+        new ObjectMapper().writeValue(file.toFile(), BenchmarkSubmissions.generate(items));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public ClientCompleteSubmission loadSubmission() {
+        return service.loadSubmission.apply(file);
+    }
+
+    @Benchmark
+    public void streamingLoader(Blackhole blackhole) {
+        service.streamingLoader.load(file, new StreamedSubmissionHandler() {
+            @Override
+            public void start(Submission submission) {
+                blackhole.consume(submission);
+            }
+
+            @Override
+            public void item(Submittable item) {
+                blackhole.consume(item);
+            }
+
+            @Override
+            public void end() {
+            }
+        });
+    }
+}
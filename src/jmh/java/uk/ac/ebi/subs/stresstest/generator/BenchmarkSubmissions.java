@@ -0,0 +1,61 @@
+package uk.ac.ebi.subs.stresstest.generator;
+
+import uk.ac.ebi.subs.data.Submission;
+import uk.ac.ebi.subs.data.client.Assay;
+import uk.ac.ebi.subs.data.client.AssayData;
+import uk.ac.ebi.subs.data.client.Project;
+import uk.ac.ebi.subs.data.client.Sample;
+import uk.ac.ebi.subs.data.client.Study;
+import uk.ac.ebi.subs.data.submittable.Submittable;
+import uk.ac.ebi.subs.stresstest.ClientCompleteSubmission;
+import uk.ac.ebi.subs.stresstest.StreamedSubmissionHandler;
+
+/**
+ * Synthetic submissions for the benchmarks, built with the same generator as synthetic workloads.
+ */
+public final class BenchmarkSubmissions {
+
+    private BenchmarkSubmissions() {
+    }
+
+    /**
+     * @return a submission with about the given number of submittables, a third each of samples, assays and assay data
+     */
+    public static ClientCompleteSubmission generate(int items) {
+        GeneratorSpec spec = new GeneratorSpec();
+        spec.seed = 1;
+        spec.teams = 1;
+        spec.teamPrefix = "benchmark-team-";
+        spec.aliasPrefix = "benchmark";
+        spec.submissionsPerTeam = 1;
+        spec.projects = 1;
+        spec.studies = 1;
+        spec.samples = items / 3;
+        spec.assays = items / 3;
+        spec.assayData = items / 3;
+        spec.attributes = 5;
+        spec.attributeValueLength = 16;
+
+        ClientCompleteSubmission submission = new ClientCompleteSubmission();
+        new SyntheticSubmissionGenerator(spec).generate(0, new StreamedSubmissionHandler() {
+            @Override
+            public void start(Submission start) {
+                submission.setTeam(start.getTeam());
+            }
+
+            @Override
+            public void item(Submittable item) {
+                if (item instanceof Project) submission.getProjects().add((Project) item);
+                else if (item instanceof Study) submission.getStudies().add((Study) item);
+                else if (item instanceof Sample) submission.getSamples().add((Sample) item);
+                else if (item instanceof Assay) submission.getAssays().add((Assay) item);
+                else if (item instanceof AssayData) submission.getAssayData().add((AssayData) item);
+            }
+
+            @Override
+            public void end() {
+            }
+        });
+        return submission;
+    }
+}
@@ -7,7 +7,19 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
 import uk.ac.ebi.subs.stresstest.StressTestService;
+import uk.ac.ebi.subs.stresstest.distributed.Coordinator;
+import uk.ac.ebi.subs.stresstest.distributed.WorkerServer;
+import uk.ac.ebi.subs.stresstest.generator.GeneratorSpec;
+import uk.ac.ebi.subs.stresstest.mock.MockApiServer;
+import uk.ac.ebi.subs.stresstest.results.BaselineComparison;
+import uk.ac.ebi.subs.stresstest.results.RunResults;
+import uk.ac.ebi.subs.stresstest.scenario.Scenario;
+import uk.ac.ebi.subs.stresstest.trace.TraceReplayer;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -20,20 +32,106 @@ public class StressTesterApplication implements CommandLineRunner {
     @Autowired
     StressTestService stressTestService;
 
+    @Autowired
+    GeneratorSpec generatorSpec;
+
+    @Autowired
+    TraceReplayer traceReplayer;
+
+    @Autowired
+    WorkerServer workerServer;
+
+    @Autowired
+    Coordinator coordinator;
+
+    @Autowired
+    MockApiServer mockApiServer;
+
     @Value("${searchDir:.}")
     String searchDir;
 
+    @Value("${replay.file:}")
+    String replayFile;
+
+    @Value("${scenario.file:}")
+    String scenarioFile;
+
+    @Value("${distributed.mode:}")
+    String distributedMode;
+
     @Override
     public void run(String... args) {
 
+        if (mockApiServer.isStandalone()) {
+            this.mockApiServer.serve();
+            return;
+        }
+
+        if ("worker".equals(distributedMode)) {
+            this.workerServer.serve();
+            return;
+        }
+        if ("coordinator".equals(distributedMode)) {
+            this.coordinator.coordinate(args);
+            return;
+        }
+
+        if (!replayFile.isEmpty()) {
+            this.traceReplayer.replay(Paths.get(replayFile));
+            return;
+        }
+
+        if (!scenarioFile.isEmpty()) {
+            this.stressTestService.runScenario(Scenario.load(Paths.get(scenarioFile)), Paths.get(searchDir));
+            return;
+        }
+
+        if (generatorSpec.isEnabled()) {
+            this.stressTestService.submitGenerated();
+            return;
+        }
+
         Path searchDirPath = Paths.get(searchDir);
 
-        logger.info("Searching for json under: "+searchDirPath.toAbsolutePath());
+        logger.info("Searching for json under: {}", searchDirPath.toAbsolutePath());
 
         this.stressTestService.submitJsonInDir(searchDirPath);
     }
 
     public static void main(String[] args) {
-        SpringApplication.run(StressTesterApplication.class, args);
+        String compareRun = commandLineProperty(args, "compare.run");
+        ConfigurableApplicationContext context;
+        if (compareRun.isEmpty()) {
+            context = SpringApplication.run(StressTesterApplication.class, args);
+        } else {
+            context = compare(Paths.get(compareRun), args);
+        }
+
+        int exitCode = SpringApplication.exit(context);
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+
+    /**
+     * Compare a stored run with the baseline in a context holding only the results beans, so that it runs offline,
+     * without logging in to AAP or starting the metrics endpoints.
+     */
+    private static ConfigurableApplicationContext compare(Path runDir, String[] args) {
+        ConfigurableApplicationContext context = SpringApplication.run(
+                new Object[]{PropertyPlaceholderAutoConfiguration.class, RunResults.class, BaselineComparison.class}, args);
+        try {
+            context.getBean(BaselineComparison.class).compare(runDir);
+        } catch (RuntimeException e) {
+            SpringApplication.exit(context);
+            throw e;
+        }
+        return context;
+    }
+
+    private static String commandLineProperty(String[] args, String name) {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+        return environment.getProperty(name, "");
     }
 }
@@ -31,7 +31,7 @@ public class ClientCompleteSubmission extends Submission{
      * @return
      */
     private List<List<Submittable>> allSubmittablesLists(){
-        List lists = Arrays.asList(analyses, assays, assayData, egaDacs, egaDacPolicies, egaDatasets, projects, samples, sampleGroups, studies);
+        List lists = Arrays.asList(analyses, assays, assayData, egaDacs, egaDacPolicies, egaDatasets, projects, samples, sampleGroups, studies, protocols);
         return (List<List<Submittable>>)lists;
     }
 
@@ -0,0 +1,93 @@
+package uk.ac.ebi.subs.stresstest;
+
+import uk.ac.ebi.subs.data.client.*;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Orders submittable types so that each type is posted after the types it can reference, e.g. an Assay after the
+ * Study and Samples it uses.
+ * <p>
+ * The reference graph between types is sorted topologically into waves: wave 0 holds types that reference nothing,
+ * and every other type is one wave after the latest wave it references. Items in the same wave are posted in
+ * parallel.
+ * <p>
+ * Only references between different types are ordered. An item can also reference items of its own type, e.g. a
+ * Sample's sampleRelationships, and those may be posted at the same time as the item referring to them; the server
+ * has to resolve such references by alias once the submission is validated.
+ */
+public final class DependencyWaves {
+
+    private static final Map<Class, List<Class>> REFERENCES = new HashMap<>();
+
+    static {
+        references(Project.class);
+        references(Sample.class);
+        references(Protocol.class);
+        references(EgaDac.class);
+        references(Study.class, Project.class);
+        references(SampleGroup.class, Sample.class);
+        references(Assay.class, Study.class, Sample.class);
+        references(AssayData.class, Assay.class);
+        references(Analysis.class, Study.class, Sample.class);
+        references(EgaDacPolicy.class, EgaDac.class);
+        references(EgaDataset.class, EgaDacPolicy.class, AssayData.class, Analysis.class);
+    }
+
+    private static final Map<Class, Integer> WAVES = sort(REFERENCES);
+
+    private DependencyWaves() {
+    }
+
+    /**
+     * @return the wave of the type; types without known references are in wave 0
+     */
+    public static int wave(Class type) {
+        return WAVES.getOrDefault(type, 0);
+    }
+
+    private static void references(Class type, Class... referencedTypes) {
+        REFERENCES.put(type, Arrays.asList(referencedTypes));
+    }
+
+    private static Map<Class, Integer> sort(Map<Class, List<Class>> references) {
+        Map<Class, Integer> unresolved = new HashMap<>();
+        Map<Class, Set<Class>> referencedBy = new HashMap<>();
+        references.forEach((type, referencedTypes) -> {
+            unresolved.put(type, referencedTypes.size());
+            referencedTypes.forEach(referenced -> referencedBy.computeIfAbsent(referenced, t -> new HashSet<>()).add(type));
+        });
+
+        Map<Class, Integer> waves = new HashMap<>();
+        Deque<Class> ready = new ArrayDeque<>();
+        unresolved.forEach((type, count) -> {
+            if (count == 0) {
+                ready.add(type);
+                waves.put(type, 0);
+            }
+        });
+
+        while (!ready.isEmpty()) {
+            Class type = ready.remove();
+            for (Class dependent : referencedBy.getOrDefault(type, Collections.emptySet())) {
+                waves.merge(dependent, waves.get(type) + 1, Math::max);
+                if (unresolved.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        if (waves.size() != references.size()) {
+            throw new IllegalStateException("cyclic references between submittable types");
+        }
+        return waves;
+    }
+}
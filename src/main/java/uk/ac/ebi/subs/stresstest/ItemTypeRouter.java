@@ -0,0 +1,218 @@
+package uk.ac.ebi.subs.stresstest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import uk.ac.ebi.subs.data.client.*;
+import uk.ac.ebi.subs.stresstest.metrics.LatencyMetrics;
+import uk.ac.ebi.subs.stresstest.metrics.Operations;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps each submittable type to the endpoint its items are posted to.
+ * <p>
+ * The registry holds the API collection name of every type in {@link ClientCompleteSubmission}; names can be
+ * overridden with {@code router.rels}, e.g. {@code router.rels=Study=studies,Assay=assays}. The submission contents
+ * resource is read in a single request, and every {@code <name>:create} link on it is kept in the {@link LinkCache} as
+ * a template on the submission id, so later submissions are routed without any requests until the links expire. The
+ * template is built by replacing the path segment that holds the submission id, so the id appearing elsewhere in the
+ * link is left alone. With the link cache off, the contents resource is read for every submission instead.
+ * <p>
+ * Types the API has no create link for are left out of the routes, and reported once.
+ */
+@Component
+public class ItemTypeRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ItemTypeRouter.class);
+
+    static final String SUBMISSION_ID_PLACEHOLDER = "{submissionId}";
+    private static final String NO_ROUTE = "";
+
+    @Value("${router.rels:}")
+    String[] relOverrides;
+    @Value("${linkCache.enabled:true}")
+    boolean cacheRoutes;
+
+    @Autowired
+    RestTemplate restTemplate;
+    @Autowired
+    LatencyMetrics latencyMetrics;
+    @Autowired
+    LinkCache linkCache;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<Class, String> typeNames = new LinkedHashMap<>();
+    private final Set<Class> reportedMissing = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void registerTypes() {
+        typeNames.put(Project.class, "projects");
+        typeNames.put(Study.class, "enaStudies");
+        typeNames.put(Sample.class, "samples");
+        typeNames.put(SampleGroup.class, "sampleGroups");
+        typeNames.put(Protocol.class, "protocols");
+        typeNames.put(Assay.class, "sequencingExperiments");
+        typeNames.put(AssayData.class, "sequencingRuns");
+        typeNames.put(Analysis.class, "analyses");
+        typeNames.put(EgaDac.class, "egaDacs");
+        typeNames.put(EgaDacPolicy.class, "egaDacPolicies");
+        typeNames.put(EgaDataset.class, "egaDatasets");
+
+        for (String override : relOverrides) {
+            if (override.isEmpty()) continue;
+            String[] typeAndName = override.split("=", 2);
+            Class type = typeNames.keySet().stream()
+                    .filter(t -> t.getSimpleName().equals(typeAndName[0].trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("unknown submittable type in router.rels: " + override));
+            typeNames.put(type, typeAndName[1].trim());
+        }
+    }
+
+    /**
+     * @return the API collection name of the type, e.g. samples or sequencingRuns
+     */
+    public String typeName(Class type) {
+        return typeNames.getOrDefault(type, type.getSimpleName());
+    }
+
+    /**
+     * @return the API collection names of all registered types
+     */
+    public Collection<String> getTypeNames() {
+        return Collections.unmodifiableCollection(typeNames.values());
+    }
+
+    /**
+     * Forget the routes, so they are resolved again for the next submission, e.g. at the start of a run.
+     */
+    public void reset() {
+        typeNames.keySet().forEach(type -> linkCache.remove(routeKey(type)));
+    }
+
+    /**
+     * @return the item create URI for each type the API accepts, for the given submission
+     */
+    public Map<Class, String> routes(String submissionUri) {
+        String submissionId = submissionId(submissionUri);
+        Map<Class, String> templates;
+        if (cacheRoutes) {
+            templates = new HashMap<>();
+            for (Class type : typeNames.keySet()) {
+                templates.put(type, linkCache.get(routeKey(type), () -> resolveAndCache(submissionUri, type)));
+            }
+        } else {
+            templates = resolve(submissionUri);
+        }
+
+        Map<Class, String> routes = new HashMap<>();
+        templates.forEach((type, template) -> {
+            if (!NO_ROUTE.equals(template)) {
+                routes.put(type, template.replace(SUBMISSION_ID_PLACEHOLDER, submissionId));
+            }
+        });
+        return routes;
+    }
+
+    /**
+     * Resolve the routes of every type from one read of the contents, caching all but the one asked for.
+     */
+    private String resolveAndCache(String submissionUri, Class type) {
+        Map<Class, String> templates = resolve(submissionUri);
+        templates.forEach((other, template) -> {
+            if (other != type) {
+                linkCache.put(routeKey(other), template);
+            }
+        });
+        return templates.get(type);
+    }
+
+    private Map<Class, String> resolve(String submissionUri) {
+        JsonNode links = contentsLinks(submissionUri);
+
+        Map<Class, String> templates = new HashMap<>();
+        typeNames.forEach((type, name) -> {
+            JsonNode link = links.path(name + ":create");
+            if (link.isArray()) {
+                link = link.path(0);
+            }
+            if (link.hasNonNull("href")) {
+                templates.put(type, routeTemplate(link.get("href").asText(), submissionUri));
+            } else {
+                templates.put(type, NO_ROUTE);
+                if (reportedMissing.add(type)) {
+                    logger.warn("No {}:create link on the submission contents; {} items will be skipped", name, type.getSimpleName());
+                }
+            }
+        });
+        return templates;
+    }
+
+    private JsonNode contentsLinks(String submissionUri) {
+        long startNanos = System.nanoTime();
+        try {
+            String contents = restTemplate.getForObject(submissionUri + "/contents/", String.class);
+            return mapper.readTree(contents).path("_links");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            latencyMetrics.recordSince(Operations.LINK_DISCOVERY, startNanos);
+        }
+    }
+
+    /**
+     * Replace the path segment of a link that holds the submission id with {@link #SUBMISSION_ID_PLACEHOLDER}. That is
+     * the segment at the position of the id in the submission URI, or failing that the first segment equal to the id.
+     * A link without the id is returned as it is.
+     */
+    static String routeTemplate(String href, String submissionUri) {
+        List<String> submissionSegments = UriComponentsBuilder.fromUriString(submissionUri).build().getPathSegments();
+        if (submissionSegments.isEmpty()) return href;
+        int idIndex = submissionSegments.size() - 1;
+        String submissionId = submissionSegments.get(idIndex);
+
+        UriComponents link = UriComponentsBuilder.fromUriString(href).build();
+        List<String> segments = new ArrayList<>(link.getPathSegments());
+        if (idIndex >= segments.size() || !segments.get(idIndex).equals(submissionId)) {
+            idIndex = segments.indexOf(submissionId);
+            if (idIndex < 0) return href;
+        }
+        segments.set(idIndex, SUBMISSION_ID_PLACEHOLDER);
+
+        UriComponentsBuilder template = UriComponentsBuilder.newInstance()
+                .uriComponents(link)
+                .replacePath(null)
+                .pathSegment(segments.toArray(new String[0]));
+        if (link.getPath().endsWith("/")) {
+            template.path("/");
+        }
+        return template.build().toUriString();
+    }
+
+    private static String routeKey(Class type) {
+        return "route:" + type.getName();
+    }
+
+    static String submissionId(String submissionUri) {
+        String trimmed = submissionUri.endsWith("/") ? submissionUri.substring(0, submissionUri.length() - 1) : submissionUri;
+        return trimmed.substring(trimmed.lastIndexOf('/') + 1);
+    }
+}
@@ -0,0 +1,95 @@
+package uk.ac.ebi.subs.stresstest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Least-recently-used cache of discovered link hrefs, with a time to live so that long runs pick up API changes.
+ * <p>
+ * Concurrent misses on the same key may each load the link; the last one to finish wins. That keeps discovery out of
+ * the lock, at the cost of a few duplicate traversals at the start of a run.
+ */
+public class LinkCache {
+
+    private final long ttlNanos;
+    private final Map<String, CachedHref> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LinkCache(int maxEntries, long ttlNanos) {
+        this.ttlNanos = ttlNanos;
+        this.entries = new LinkedHashMap<String, CachedHref>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedHref> eldest) {
+                boolean evict = size() > maxEntries;
+                if (evict) {
+                    evictions.increment();
+                }
+                return evict;
+            }
+        };
+    }
+
+    public String get(String key, Supplier<String> loader) {
+        CachedHref cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+
+        if (cached != null && System.nanoTime() - cached.loadedAtNanos < ttlNanos) {
+            hits.increment();
+            return cached.href;
+        }
+
+        misses.increment();
+        String href = loader.get();
+        synchronized (entries) {
+            entries.put(key, new CachedHref(href, System.nanoTime()));
+        }
+        return href;
+    }
+
+    /**
+     * Store a link that was loaded along with another, so that its first lookup is a hit.
+     */
+    public void put(String key, String href) {
+        synchronized (entries) {
+            entries.put(key, new CachedHref(href, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Drop a link, so that it is loaded again on its next lookup.
+     */
+    public void remove(String key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private static class CachedHref {
+        private final String href;
+        private final long loadedAtNanos;
+
+        private CachedHref(String href, long loadedAtNanos) {
+            this.href = href;
+            this.loadedAtNanos = loadedAtNanos;
+        }
+    }
+}
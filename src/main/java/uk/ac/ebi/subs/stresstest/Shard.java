@@ -0,0 +1,41 @@
+package uk.ac.ebi.subs.stresstest;
+
+/**
+ * One of several disjoint parts of a workload, so that it can be split between load generators.
+ */
+public class Shard {
+
+    public static final Shard ALL = new Shard(0, 1);
+
+    private final int index;
+    private final int count;
+
+    public Shard(int index, int count) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("invalid shard " + index + " of " + count);
+        }
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * For workloads identified by name, such as input files. Ordered workloads, such as generated submissions, are
+     * split by taking every count-th position starting from the index instead.
+     */
+    public boolean contains(String key) {
+        return Math.floorMod(key.hashCode(), count) == index;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "shard " + (index + 1) + " of " + count;
+    }
+}
@@ -0,0 +1,25 @@
+package uk.ac.ebi.subs.stresstest;
+
+import uk.ac.ebi.subs.data.Submission;
+import uk.ac.ebi.subs.data.submittable.Submittable;
+
+/**
+ * Receives a submission file from the {@link StreamingSubmissionLoader} one piece at a time.
+ */
+public interface StreamedSubmissionHandler {
+
+    /**
+     * Called once per file, with the submission fields that precede the first list of submittables.
+     */
+    void start(Submission submission);
+
+    /**
+     * Called for each submittable, in file order, as soon as it has been parsed.
+     */
+    void item(Submittable item);
+
+    /**
+     * Called once the whole file has been read.
+     */
+    void end();
+}
@@ -0,0 +1,103 @@
+package uk.ac.ebi.subs.stresstest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.subs.data.Submission;
+import uk.ac.ebi.subs.data.client.*;
+import uk.ac.ebi.subs.data.submittable.Submittable;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads submission JSON in the {@link ClientCompleteSubmission} layout with Jackson's streaming parser, handing each
+ * submittable on as soon as it is parsed. Only one submittable is held at a time, so heap use does not depend on the
+ * size of the file.
+ * <p>
+ * The submission fields (team etc.) must come before the first list of submittables; fields that appear after it
+ * are ignored, as the submission has already been started by then.
+ */
+public class StreamingSubmissionLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingSubmissionLoader.class);
+
+    private static final Map<String, Class<? extends Submittable>> ITEM_LISTS = new HashMap<>();
+
+    static {
+        ITEM_LISTS.put("analyses", Analysis.class);
+        ITEM_LISTS.put("assays", Assay.class);
+        ITEM_LISTS.put("assayData", AssayData.class);
+        ITEM_LISTS.put("egaDacs", EgaDac.class);
+        ITEM_LISTS.put("egaDacPolicies", EgaDacPolicy.class);
+        ITEM_LISTS.put("egaDatasets", EgaDataset.class);
+        ITEM_LISTS.put("projects", Project.class);
+        ITEM_LISTS.put("samples", Sample.class);
+        ITEM_LISTS.put("sampleGroups", SampleGroup.class);
+        ITEM_LISTS.put("studies", Study.class);
+        ITEM_LISTS.put("protocols", Protocol.class);
+    }
+
+    private final ObjectMapper mapper;
+
+    public StreamingSubmissionLoader(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    public void load(Path path, StreamedSubmissionHandler handler) {
+        logger.info("Streaming Submission JSON from {}", path);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             JsonParser parser = mapper.getFactory().createParser(Channels.newInputStream(channel))) {
+
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("expected a JSON object at the start of " + path);
+            }
+
+            ObjectNode header = mapper.createObjectNode();
+            boolean started = false;
+            long itemCount = 0;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken valueToken = parser.nextToken();
+                Class<? extends Submittable> itemType = ITEM_LISTS.get(fieldName);
+
+                if (itemType != null && valueToken == JsonToken.START_ARRAY) {
+                    if (!started) {
+                        handler.start(mapper.treeToValue(header, Submission.class));
+                        started = true;
+                    }
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        handler.item(parser.readValueAs(itemType));
+                        itemCount++;
+                    }
+                } else if (itemType != null && valueToken == JsonToken.VALUE_NULL) {
+                    // an empty list written as null, as ClientCompleteSubmission serialises unset lists
+                    continue;
+                } else if (!started) {
+                    header.set(fieldName, parser.readValueAsTree());
+                } else {
+                    logger.warn("Ignoring field {} in {}, as it follows the submittables", fieldName, path);
+                    parser.skipChildren();
+                }
+            }
+
+            if (!started) {
+                handler.start(mapper.treeToValue(header, Submission.class));
+            }
+            logger.info("Streamed {} submittables from {}", itemCount, path);
+            handler.end();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
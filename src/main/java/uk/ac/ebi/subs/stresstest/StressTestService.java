@@ -1,8 +1,31 @@
 package uk.ac.ebi.subs.stresstest;
 
+import uk.ac.ebi.subs.stresstest.scenario.Scenario;
+
 import java.nio.file.Path;
 
 public interface StressTestService {
 
-    void submitJsonInDir(Path path);
+    default void submitJsonInDir(Path path) {
+        submitJsonInDir(path, Shard.ALL);
+    }
+
+    void submitJsonInDir(Path path, Shard shard);
+
+    default void submitGenerated() {
+        submitGenerated(Shard.ALL);
+    }
+
+    void submitGenerated(Shard shard);
+
+    /**
+     * Run the phases of a scenario. New submissions are generated if the generator is enabled, otherwise they are
+     * read from the files under searchDir in turn.
+     */
+    void runScenario(Scenario scenario, Path searchDir);
+
+    /**
+     * @return the number of submissions completed so far
+     */
+    long getSubmissionCount();
 }
@@ -1,34 +1,74 @@
 package uk.ac.ebi.subs.stresstest;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
 import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.data.util.Pair;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.Resource;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import uk.ac.ebi.subs.data.Submission;
 import uk.ac.ebi.subs.data.client.*;
 import uk.ac.ebi.subs.data.status.SubmissionStatus;
 import uk.ac.ebi.subs.data.submittable.Submittable;
-
+import uk.ac.ebi.subs.stresstest.auth.AapTokenManager;
+import uk.ac.ebi.subs.stresstest.execution.ExecutionEngine;
+import uk.ac.ebi.subs.stresstest.execution.InFlightTracker;
+import uk.ac.ebi.subs.stresstest.execution.ItemBatcher;
+import uk.ac.ebi.subs.stresstest.generator.GeneratorSpec;
+import uk.ac.ebi.subs.stresstest.generator.SyntheticSubmissionGenerator;
+import uk.ac.ebi.subs.stresstest.http.ConnectionPoolMetrics;
+import uk.ac.ebi.subs.stresstest.metrics.AllocationMetrics;
+import uk.ac.ebi.subs.stresstest.metrics.LatencyMetrics;
+import uk.ac.ebi.subs.stresstest.metrics.Operations;
+import uk.ac.ebi.subs.stresstest.payload.PayloadBuffer;
+import uk.ac.ebi.subs.stresstest.payload.PayloadBufferPool;
+import uk.ac.ebi.subs.stresstest.results.BaselineComparison;
+import uk.ac.ebi.subs.stresstest.results.RunResults;
+import uk.ac.ebi.subs.stresstest.results.RunSummary;
+import uk.ac.ebi.subs.stresstest.scenario.ResourcePool;
+import uk.ac.ebi.subs.stresstest.scenario.Scenario;
+import uk.ac.ebi.subs.stresstest.scenario.ScenarioRunner;
+import uk.ac.ebi.subs.stresstest.schedule.OpenLoopScheduler;
+import uk.ac.ebi.subs.stresstest.schedule.RateSchedules;
+import uk.ac.ebi.subs.stresstest.schedule.ScheduledStart;
+import uk.ac.ebi.subs.stresstest.status.StatusPoller;
+import uk.ac.ebi.subs.stresstest.status.SubmissionLifecycleTracker;
+import uk.ac.ebi.subs.stresstest.trace.TraceRecorder;
+import uk.ac.ebi.subs.stresstest.transport.AsyncItemTransport;
+import uk.ac.ebi.subs.stresstest.transport.ItemResponse;
+
+import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -52,50 +92,315 @@ public class StressTestServiceImpl implements StressTestService {
     String suffix;
     @Value("${submitted:true}")
     boolean submitted;
+    @Value("${load.submissionRate:}")
+    String submissionRate;
+    @Value("${load.itemRate:}")
+    String itemRate;
+    @Value("${batch.size:0}")
+    int batchSize;
+    @Value("${batch.path:}")
+    String batchPath;
+    @Value("${items.abortOnFailure:false}")
+    boolean abortOnItemFailure;
+    @Value("${ordering.dependencyWaves:true}")
+    boolean dependencyOrdering;
+    @Value("${loader.streaming:false}")
+    boolean streaming;
+    @Value("${tracking.processingStatusesRel:processingStatuses}")
+    String processingStatusesRel;
+    @Value("${linkCache.enabled:true}")
+    boolean linkCacheEnabled;
+    @Value("${payload.pooled:false}")
+    boolean pooledPayloads;
+    @Value("${logging.itemSampleEvery:1}")
+    long itemLogSampleEvery;
 
     @Autowired
     RestTemplate restTemplate;
 
+    @Autowired
+    ClientHttpRequestFactory apiRequestFactory;
+
+    @Autowired
+    LinkCache linkCache;
+
+    @Autowired
+    LatencyMetrics latencyMetrics;
+
+    @Autowired
+    ExecutionEngine executionEngine;
+
+    @Autowired
+    GeneratorSpec generatorSpec;
+
+    @Autowired(required = false)
+    AsyncItemTransport asyncItemTransport;
+
+    @Autowired
+    StatusPoller statusPoller;
+
+    @Autowired
+    SubmissionLifecycleTracker lifecycleTracker;
+
+    @Autowired
+    TraceRecorder traceRecorder;
+
+    @Autowired
+    ItemTypeRouter itemTypeRouter;
+
+    @Autowired
+    ConnectionPoolMetrics poolMetrics;
+
+    @Autowired
+    AapTokenManager tokenManager;
+
+    @Autowired
+    PayloadBufferPool bufferPool;
+
+    @Autowired
+    AllocationMetrics allocationMetrics;
+
+    @Autowired
+    ScenarioRunner scenarioRunner;
+
+    @Autowired
+    ResourcePool resourcePool;
+
+    @Autowired
+    RunResults runResults;
+
+    @Autowired
+    BaselineComparison baselineComparison;
+
     ObjectMapper mapper = new ObjectMapper();
 
+    StreamingSubmissionLoader streamingLoader = new StreamingSubmissionLoader(mapper);
+
     ParameterizedTypeReference<Resource<Submission>> submissionResourceTypeRef =
             new ParameterizedTypeReference<Resource<Submission>>() {
             };
 
-    int submissionCounter = 0;
+    final LongAdder submissionCounter = new LongAdder();
+    final LongAdder skippedItems = new LongAdder();
+    final LongAdder failedStatusUpdates = new LongAdder();
+    final AtomicLong itemLogCounter = new AtomicLong();
+
+    OpenLoopScheduler submissionScheduler;
+    OpenLoopScheduler itemScheduler;
+
+    volatile InFlightTracker statusUpdates = new InFlightTracker();
+
+    private long measuringSinceEpochMillis;
+    private long submissionsBefore;
+    private long failedSubmissionsBefore;
+    private long failedItemsBefore;
+    private long failedStatusUpdatesBefore;
 
     @Override
-    public void submitJsonInDir(Path path) {
-        pathStream(path)
-                .map(loadSubmission)
-                .parallel()
-                .forEach(submitSubmission)
-        ;
-        logger.info("Submission count: {}", submissionCounter);
-    }
-
-    public Map<Class, String> itemSubmissionUri(String submissionUri) {
-        Map<Class, String> itemClassToSubmissionUri = new HashMap<>();
-        URI rootUri = URI.create(submissionUri + "/contents/");
-
-        Stream.of(
-                Pair.of(Sample.class, "samples"),
-                Pair.of(Assay.class, "sequencingExperiments"),
-                Pair.of(Study.class, "enaStudies"),
-                Pair.of(AssayData.class,"sequencingRuns"),
-                Pair.of(Project.class,"projects")
-        ).forEach(
-                pair -> {
-                    Class type = pair.getFirst();
-                    String name = pair.getSecond() + ":create";
-
-                    Link link = apiLinkDiscovery.discoverNamedLink(restTemplate,rootUri, name);
-
-                    itemClassToSubmissionUri.put(type, link.getHref());
+    public void submitJsonInDir(Path path, Shard shard) {
+        run(() -> {
+            try (Stream<Path> paths = pathStream(path).filter(p -> shard.contains(p.toString()))) {
+                if (streaming) {
+                    paths.forEach(file -> dispatchSubmission(file.toString(),
+                            start -> streamingLoader.load(file, new StreamingSubmission(start))
+                    ));
+                } else {
+                    paths.map(loadSubmission).forEach(submission -> dispatchSubmission(submission.getTeam().getName(),
+                            start -> submitSubmission(submission, start)
+                    ));
                 }
+            }
+        });
+    }
+
+    @Override
+    public void submitGenerated(Shard shard) {
+        SyntheticSubmissionGenerator generator = new SyntheticSubmissionGenerator(generatorSpec);
+        logger.info("Generating {} of {} submissions of {} submittables from {}",
+                shard, generator.submissionCount(), generatorSpec.getItemsPerSubmission(), generatorSpec);
+
+        run(() -> {
+            for (long index = shard.getIndex(); index < generator.submissionCount(); index += shard.getCount()) {
+                final long submissionIndex = index;
+                dispatchSubmission("generated-" + submissionIndex,
+                        start -> generator.generate(submissionIndex, new StreamingSubmission(start))
+                );
+            }
+        });
+    }
+
+    @Override
+    public void runScenario(Scenario scenario, Path searchDir) {
+        AtomicLong nextSubmission = new AtomicLong();
+        Consumer<ScheduledStart> createSubmission;
+        if (generatorSpec.isEnabled()) {
+            SyntheticSubmissionGenerator generator = new SyntheticSubmissionGenerator(generatorSpec);
+            createSubmission = start -> generator.generate(
+                    nextSubmission.getAndIncrement() % generator.submissionCount(), new StreamingSubmission(start));
+        } else {
+            List<Path> files;
+            try (Stream<Path> paths = pathStream(searchDir)) {
+                files = paths.sorted().collect(Collectors.toList());
+            }
+            if (files.isEmpty()) {
+                throw new IllegalStateException("no ." + suffix + " files under " + searchDir.toAbsolutePath() + " to create submissions from");
+            }
+            createSubmission = start -> streamingLoader.load(
+                    files.get((int) (nextSubmission.getAndIncrement() % files.size())), new StreamingSubmission(start));
+        }
+
+        run(() -> scenarioRunner.run(scenario, createSubmission, this::startMeasuring));
+    }
+
+    /**
+     * Wait for the submissions in flight and their status updates, then discard the latencies, allocation and counts
+     * recorded so far, e.g. at the end of a warm-up.
+     */
+    void startMeasuring() {
+        executionEngine.awaitSubmissions();
+        statusUpdates.await();
+        latencyMetrics.reset();
+        allocationMetrics.startRun();
+        captureCounts();
+    }
+
+    /**
+     * Take the counts the run summary is measured from.
+     */
+    private void captureCounts() {
+        measuringSinceEpochMillis = System.currentTimeMillis();
+        submissionsBefore = submissionCounter.sum();
+        failedSubmissionsBefore = executionEngine.getFailedSubmissions();
+        failedItemsBefore = executionEngine.getFailedItems();
+        failedStatusUpdatesBefore = failedStatusUpdates.sum();
+    }
+
+    @Override
+    public long getSubmissionCount() {
+        return submissionCounter.sum();
+    }
+
+    /**
+     * Dispatch all submissions, wait for them to complete and report on the run.
+     */
+    void run(Runnable dispatchSubmissions) {
+        tokenManager.fetchTokens();
+        initOpenLoopSchedulers();
+        itemTypeRouter.reset();
+        allocationMetrics.startRun();
+        statusUpdates = new InFlightTracker();
+        long startNanos = System.nanoTime();
+        captureCounts();
+
+        dispatchSubmissions.run();
+        executionEngine.awaitSubmissions();
+        statusUpdates.await();
+        long endNanos = System.nanoTime();
+
+        logOpenLoopSummary(submissionScheduler);
+        logOpenLoopSummary(itemScheduler);
+        if (linkCacheEnabled) {
+            logger.info("Link cache: {} hits, {} misses, {} evictions",
+                    linkCache.getHits(), linkCache.getMisses(), linkCache.getEvictions());
+        }
+        logger.info("Submission count: {}", submissionCounter.sum());
+        logger.info("Failed submissions: {}", executionEngine.getFailedSubmissions());
+        logger.info("Failed items: {}", executionEngine.getFailedItems());
+        logger.info("Failed status updates: {}", failedStatusUpdates.sum());
+        logger.info("Skipped items without an endpoint: {}", skippedItems.sum());
+        logger.info("Connection pools:{}", poolMetrics.summary());
+        lifecycleTracker.report();
+        latencyMetrics.report();
+
+        Map<String, Histogram> totals = latencyMetrics.totals();
+        RunSummary summary = RunSummary.of(totals, (endNanos - Math.max(startNanos, latencyMetrics.getMeasuringSinceNanos())) / 1e9);
+        summary.setStartEpochMillis(measuringSinceEpochMillis);
+        summary.setSubmissions(submissionCounter.sum() - submissionsBefore);
+        summary.setFailedSubmissions(executionEngine.getFailedSubmissions() - failedSubmissionsBefore);
+        summary.setFailedItems(executionEngine.getFailedItems() - failedItemsBefore);
+        summary.setFailedStatusUpdates(failedStatusUpdates.sum() - failedStatusUpdatesBefore);
+
+        allocationMetrics.report(summary.getRequests());
+        if (pooledPayloads) {
+            logger.info("Payload buffers allocated: {}", bufferPool.getAllocated());
+        }
+        traceRecorder.flush();
+        baselineComparison.compareIfConfigured(runResults.write(summary, totals));
+    }
+
+    /**
+     * Hand submission-level work to the execution engine. In open-loop mode this first waits for the next scheduled
+     * start, without waiting for earlier submissions to complete.
+     */
+    void dispatchSubmission(String description, Consumer<ScheduledStart> work) {
+        int identity = tokenManager.nextIdentity();
+        if (submissionScheduler == null) {
+            executionEngine.submitSubmission(tokenManager.bind(identity, () -> work.accept(ScheduledStart.now())));
+        } else {
+            ScheduledStart start = submissionScheduler.awaitNextStart();
+            executionEngine.submitSubmission(tokenManager.bind(identity, () -> {
+                submissionScheduler.started(start, description);
+                work.accept(start);
+            }));
+        }
+    }
+
+    CompletableFuture<?> dispatchItem(Submittable item, URI submissionLocation, Map<Class, String> typeToSubmissionPath) {
+        ScheduledStart scheduledStart = itemScheduler == null ? null : itemScheduler.awaitNextStart();
+
+        if (asyncItemTransport == null) {
+            return executionEngine.submitItem(tokenManager.bindCurrent(
+                    () -> postItem(item, startItem(item.getAlias(), scheduledStart), submissionLocation, typeToSubmissionPath)
+            ));
+        }
+        return executionEngine.submitAsyncItem(
+                () -> postItemAsync(item, startItem(item.getAlias(), scheduledStart), submissionLocation, typeToSubmissionPath)
         );
+    }
+
+    /**
+     * Dispatch a batch of items of one type as a single request. In open-loop mode each batch takes one item start.
+     */
+    CompletableFuture<?> dispatchBatch(List<Submittable> batch, URI submissionLocation, Map<Class, String> typeToSubmissionPath) {
+        ScheduledStart scheduledStart = itemScheduler == null ? null : itemScheduler.awaitNextStart();
+        String description = batch.size() + " " + itemTypeName(batch.get(0).getClass());
+
+        if (asyncItemTransport == null) {
+            return executionEngine.submitItem(tokenManager.bindCurrent(
+                    () -> postBatch(batch, startItem(description, scheduledStart), submissionLocation, typeToSubmissionPath)
+            ));
+        }
+        return executionEngine.submitAsyncItem(
+                () -> postBatchAsync(batch, startItem(description, scheduledStart), submissionLocation, typeToSubmissionPath)
+        );
+    }
+
+    private ScheduledStart startItem(String description, ScheduledStart scheduledStart) {
+        if (scheduledStart == null) {
+            return ScheduledStart.now();
+        }
+        itemScheduler.started(scheduledStart, description);
+        return scheduledStart;
+    }
+
+    void initOpenLoopSchedulers() {
+        if (!submissionRate.isEmpty()) {
+            submissionScheduler = new OpenLoopScheduler("submission", RateSchedules.parse(submissionRate));
+            logger.info("Open-loop submissions at {}", submissionScheduler.getRateSchedule());
+        }
+        if (!itemRate.isEmpty()) {
+            itemScheduler = new OpenLoopScheduler("item", RateSchedules.parse(itemRate));
+            logger.info("Open-loop item POSTs at {}", itemScheduler.getRateSchedule());
+        }
+    }
 
-        return itemClassToSubmissionUri;
+    private void logOpenLoopSummary(OpenLoopScheduler scheduler) {
+        if (scheduler == null) return;
+        logger.info("Open-loop {}: {} requests scheduled, max start lag {}ms",
+                scheduler.getName(),
+                scheduler.getScheduledCount(),
+                TimeUnit.NANOSECONDS.toMillis(scheduler.getMaxLagNanos())
+        );
     }
 
     public String itemSubmissionCreateUri(String teamName) {
@@ -103,7 +408,27 @@ public class StressTestServiceImpl implements StressTestService {
     }
 
     public String discoverNamedLink(String teamName, String linkName) {
-        return apiLinkDiscovery.discoverNamedLink(restTemplate, URI.create(protocol + "://" + host + ":" + port + "/" + basePath + "/teams/" + teamName + "/"), linkName).getHref();
+        if (linkCacheEnabled) {
+            return linkCache.get("team:" + teamName + ":" + linkName, () -> discoverTeamLink(teamName, linkName));
+        }
+        return discoverTeamLink(teamName, linkName);
+    }
+
+    String discoverTeamLink(String teamName, String linkName) {
+        return discoverLink(URI.create(protocol + "://" + host + ":" + port + "/" + basePath + "/teams/" + teamName + "/"), linkName).getHref();
+    }
+
+    Link discoverLink(URI uri, String... linkNames) {
+        long startNanos = System.nanoTime();
+        try {
+            return apiLinkDiscovery.discoverNamedLink(restTemplate, uri, linkNames);
+        } finally {
+            latencyMetrics.recordSince(Operations.LINK_DISCOVERY, startNanos);
+        }
+    }
+
+    String itemTypeName(Class type) {
+        return itemTypeRouter.typeName(type);
     }
 
     Stream<Path> pathStream(Path searchDir) {
@@ -111,115 +436,449 @@ public class StressTestServiceImpl implements StressTestService {
             return Files.walk(searchDir)
                     .filter(Files::isReadable)
                     .filter(Files::isRegularFile)
-                    .filter(p -> FilenameUtils.getExtension(p.toString()).equals(this.suffix))
-                    .collect(Collectors.toList())
-                    .stream();
+                    .filter(p -> FilenameUtils.getExtension(p.toString()).equals(this.suffix));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    Consumer<ClientCompleteSubmission> submitSubmission = new Consumer<ClientCompleteSubmission>() {
-        @Override
-        public void accept(ClientCompleteSubmission submission) {
+    void submitSubmission(ClientCompleteSubmission submission, ScheduledStart start) {
+
+        logger.info("Submitting for team {} with {} submittables ",
+                submission.getTeam().getName(),
+                submission.allSubmissionItems().size()
+        );
+
+        URI submissionLocation = createSubmission(submission, start);
+        resourcePool.submissionCreated(submissionLocation, tokenManager.currentIdentity());
+
+        SubmissionItems items = new SubmissionItems(submissionLocation);
+        Stream<Submittable> itemStream = submission.allSubmissionItemsStream();
+        if (dependencyOrdering) {
+            itemStream = itemStream.sorted(Comparator.comparingInt(item -> DependencyWaves.wave(item.getClass())));
+        }
+        itemStream.forEach(items::add);
+        items.await();
+
+        completeSubmission(submissionLocation, start);
+    }
+
+    URI createSubmission(Submission submission, ScheduledStart start) {
+        final String submissionCreateUri = itemSubmissionCreateUri(submission.getTeam().getName());
+        Submission minimalSubmission = new Submission(submission);
+        long createStartNanos = start.requestStartNanos();
+        URI submissionLocation = restTemplate.postForLocation(submissionCreateUri, minimalSubmission);
+        final long between = latencyMetrics.recordSince(Operations.SUBMISSION_CREATE, createStartNanos);
+        logger.info("Submitted minimalSubmission {} in {}ms", minimalSubmission.getId(), TimeUnit.NANOSECONDS.toMillis(between));
+        return submissionLocation;
+    }
+
+    void completeSubmission(URI submissionLocation, ScheduledStart start) {
+        logger.info("Submission URL {}", submissionLocation);
+        if (submitted) {
+            statusUpdates.track(updateSubmissionStatus(submissionLocation, start).exceptionally(e -> {
+                logger.error("Status update failed for submission {}", submissionLocation, e);
+                failedStatusUpdates.increment();
+                return null;
+            }));
+        }
+
+        submissionCounter.increment();
+    }
 
-            logger.info("Submitting for team {} with {} submittables ",
-                    submission.getTeam().getName(),
-                    submission.allSubmissionItems().size()
+    /**
+     * Dispatches the items of one submission, in batches if batch.size is set, and waits for them. Items of a type
+     * without an endpoint are skipped, and unless items.abortOnFailure is set, a failed item is counted and logged
+     * without failing the rest of the submission.
+     * <p>
+     * With dependency ordering, items must be added in {@link DependencyWaves} order: when an item of a later wave is
+     * added, it waits until every item of the current wave has been posted. An item of an earlier wave is dispatched
+     * straight away with the current one, with a warning for the first such item in the submission.
+     */
+    private class SubmissionItems {
+
+        private final URI submissionLocation;
+        private final Map<Class, String> typeToSubmissionPath;
+        private final InFlightTracker itemsInFlight = new InFlightTracker();
+        private final ItemBatcher batcher;
+        private int wave = -1;
+        private long waveStartNanos;
+        private boolean outOfOrderLogged;
+
+        SubmissionItems(URI submissionLocation) {
+            this.submissionLocation = submissionLocation;
+            this.typeToSubmissionPath = itemTypeRouter.routes(submissionLocation.toString());
+            this.batcher = batchSize <= 0 ? null : new ItemBatcher(batchSize,
+                    batch -> track(dispatchBatch(batch, submissionLocation, typeToSubmissionPath))
             );
+        }
+
+        void add(Submittable item) {
+            if (!typeToSubmissionPath.containsKey(item.getClass())) {
+                skippedItems.increment();
+                return;
+            }
+            if (dependencyOrdering) {
+                int itemWave = DependencyWaves.wave(item.getClass());
+                if (itemWave > wave) {
+                    if (wave >= 0) awaitWave();
+                    wave = itemWave;
+                    waveStartNanos = System.nanoTime();
+                } else if (itemWave < wave && !outOfOrderLogged) {
+                    logger.warn("{} {} of wave {} follows items of wave {} in {}, so it is posted without waiting for its references",
+                            itemTypeName(item.getClass()), item.getAlias(), itemWave, wave, submissionLocation);
+                    outOfOrderLogged = true;
+                }
+            }
+
+            if (batcher == null) {
+                track(dispatchItem(item, submissionLocation, typeToSubmissionPath));
+            } else {
+                batcher.add(item);
+            }
+        }
 
-            long submissionCreateStartDateTime = System.currentTimeMillis();
-            final String submissionCreateUri = itemSubmissionCreateUri(submission.getTeam().getName());
-            Submission minimalSubmission = new Submission(submission);
-            URI submissionLocation = restTemplate.postForLocation(submissionCreateUri, minimalSubmission);
-            long submissionCreateEndDateTime = System.currentTimeMillis();
-            final long between = submissionCreateEndDateTime - submissionCreateStartDateTime;
-            logger.info("Submitted minimalSubmission " + minimalSubmission.getId() + " in " + between + "ms");
-
-            final Map<Class, String> typeToSubmissionPath = itemSubmissionUri(submissionLocation.toString());
-
-            List<Submittable> submittables = submission.allSubmissionItems();
-
-            submittables.parallelStream().forEach(
-                    item -> {
-                        ((PartOfSubmission) item).setSubmission(submissionLocation.toASCIIString());
-
-                        String itemUri = typeToSubmissionPath.get(item.getClass());
-
-                        if (itemUri == null) {
-                            throw new NullPointerException("no submission URI for " + item + " for class" + item.getClass());
-                        }
-                        logger.debug("posting to {}, {}", itemUri, item);
-                        try {
-                            long resourceCreateStartDateTime = System.currentTimeMillis();
-                            ResponseEntity<Resource> responseEntity = restTemplate.postForEntity(itemUri, item, Resource.class);
-                            long resourceCreateEndDateTime = System.currentTimeMillis();
-                            final long resourceBetween = resourceCreateEndDateTime - resourceCreateStartDateTime;
-                            logger.info("Submitted minimalSubmission " + item.getAlias() + " in " + resourceBetween + "ms");
-                            if (responseEntity.getStatusCodeValue() != 201) {
-                                logger.error("Unexpected status code {} when posting {} to {}; response body is",
-                                        responseEntity.getStatusCodeValue(),
-                                        item,
-                                        itemUri,
-                                        responseEntity.getBody().toString()
-                                );
-                                throw new RuntimeException("Server error " + responseEntity.toString());
-                            }
-                            URI location = responseEntity.getHeaders().getLocation();
-
-                            logger.debug("created {}", location);
-                        } catch (HttpClientErrorException e) {
-                            logger.error("HTTP error when posting item");
-                            logger.error(item.toString());
-                            logger.error(e.getResponseBodyAsString());
-                            logger.error(e.toString());
-                            throw e;
-                        }
+        /**
+         * Wait for every item added so far to be posted.
+         */
+        void await() {
+            if (wave >= 0) {
+                awaitWave();
+            } else {
+                if (batcher != null) batcher.flush();
+                itemsInFlight.await();
+            }
+        }
 
+        private void track(CompletableFuture<?> request) {
+            if (abortOnItemFailure) {
+                itemsInFlight.track(request);
+            } else {
+                itemsInFlight.track(request.handle((result, throwable) -> {
+                    if (throwable != null) {
+                        logger.warn("Item request for {} failed: {}", submissionLocation, throwable.getMessage());
                     }
+                    return null;
+                }));
+            }
+        }
+
+        private void awaitWave() {
+            if (batcher != null) batcher.flush();
+            itemsInFlight.await();
+            long waveNanos = latencyMetrics.recordSince(Operations.submissionWave(wave), waveStartNanos);
+            logger.debug("Wave {} of {} posted in {}ms", wave, submissionLocation, TimeUnit.NANOSECONDS.toMillis(waveNanos));
+        }
+    }
+
+    /**
+     * Posts the items of a streamed submission as they are parsed or generated, so only the items in flight are held
+     * in memory. Dependency waves follow the order of the stream.
+     */
+    private class StreamingSubmission implements StreamedSubmissionHandler {
+
+        private final ScheduledStart start;
+        private URI submissionLocation;
+        private SubmissionItems items;
+
+        StreamingSubmission(ScheduledStart start) {
+            this.start = start;
+        }
+
+        @Override
+        public void start(Submission submission) {
+            if (submission.getTeam() == null) {
+                throw new IllegalStateException("no team found before the submittables; the team must come first when streaming");
+            }
+            logger.info("Submitting streamed submission for team {}", submission.getTeam().getName());
+
+            submissionLocation = createSubmission(submission, start);
+            resourcePool.submissionCreated(submissionLocation, tokenManager.currentIdentity());
+            items = new SubmissionItems(submissionLocation);
+        }
+
+        @Override
+        public void item(Submittable item) {
+            items.add(item);
+        }
+
+        @Override
+        public void end() {
+            items.await();
+            completeSubmission(submissionLocation, start);
+        }
+    }
+
+    void postItem(Submittable item, ScheduledStart start, URI submissionLocation, Map<Class, String> typeToSubmissionPath) {
+        String itemUri = itemUri(item, submissionLocation, typeToSubmissionPath);
+        try {
+            ItemResponse response = pooledPayloads
+                    ? postPooled(itemUri, item)
+                    : postEntity(itemUri, item);
+            itemPosted(item, itemUri, start, response, tokenManager.currentIdentity());
+        } catch (HttpClientErrorException e) {
+            logger.error("HTTP error when posting item");
+            logger.error(item.toString());
+            logger.error(e.getResponseBodyAsString());
+            logger.error(e.toString());
+            throw e;
+        }
+    }
+
+    CompletableFuture<ItemResponse> postItemAsync(Submittable item, ScheduledStart start, URI submissionLocation, Map<Class, String> typeToSubmissionPath) {
+        String itemUri = itemUri(item, submissionLocation, typeToSubmissionPath);
+        int identity = tokenManager.currentIdentity();
+
+        CompletableFuture<ItemResponse> response;
+        if (pooledPayloads) {
+            PayloadBuffer buffer = bufferPool.acquire();
+            try {
+                writePayload(buffer, item);
+            } catch (RuntimeException e) {
+                bufferPool.release(buffer);
+                throw e;
+            }
+            response = asyncItemTransport.post(itemUri, buffer, bufferPool);
+        } else {
+            response = asyncItemTransport.post(itemUri, item);
+        }
+        return response.thenApply(itemResponse -> {
+            itemPosted(item, itemUri, start, itemResponse, identity);
+            return itemResponse;
+        });
+    }
+
+    /**
+     * Link the item to the submission and work out where to post it.
+     */
+    private String itemUri(Submittable item, URI submissionLocation, Map<Class, String> typeToSubmissionPath) {
+        ((PartOfSubmission) item).setSubmission(submissionLocation.toASCIIString());
+
+        String itemUri = typeToSubmissionPath.get(item.getClass());
+
+        if (itemUri == null) {
+            throw new NullPointerException("no submission URI for " + item + " for class" + item.getClass());
+        }
+        logger.debug("posting to {}, {}", itemUri, item);
+        return itemUri;
+    }
+
+    private ItemResponse postEntity(String itemUri, Submittable item) {
+        ResponseEntity<Resource> responseEntity = restTemplate.postForEntity(itemUri, item, Resource.class);
+        Resource body = responseEntity.getStatusCodeValue() == 201 ? null : responseEntity.getBody();
+        return new ItemResponse(
+                responseEntity.getStatusCodeValue(),
+                responseEntity.getHeaders().getLocation(),
+                body == null ? null : body.toString()
+        );
+    }
+
+    /**
+     * Serialize an item into a pooled buffer and post it through the rest template's request factory. The rest
+     * template's interceptors would copy the body into a new array, so the token is set and the exchange traced here.
+     */
+    private ItemResponse postPooled(String itemUri, Submittable item) {
+        PayloadBuffer buffer = bufferPool.acquire();
+        try {
+            writePayload(buffer, item);
+            return exchange(URI.create(itemUri), buffer);
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error on POST request for \"" + itemUri + "\": " + e.getMessage(), e);
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    private ItemResponse exchange(URI uri, PayloadBuffer buffer) throws IOException {
+        ClientHttpRequest request = apiRequestFactory.createRequest(uri, HttpMethod.POST);
+        request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        request.getHeaders().set(HttpHeaders.AUTHORIZATION, tokenManager.authorization());
+
+        long startNanos = System.nanoTime();
+        ClientHttpResponse response;
+        try {
+            buffer.writeTo(request.getBody());
+            response = request.execute();
+        } catch (IOException e) {
+            traceRecorder.record(startNanos, System.nanoTime() - startNanos, "POST", uri, 0, null,
+                    buffer.array(), buffer.size());
+            throw e;
+        }
+        try {
+            int statusCode = response.getRawStatusCode();
+            URI location = response.getHeaders().getLocation();
+            traceRecorder.record(startNanos, System.nanoTime() - startNanos, "POST", uri, statusCode, location,
+                    buffer.array(), buffer.size());
+            return new ItemResponse(
+                    statusCode,
+                    location,
+                    statusCode == 201 ? null : StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8)
+            );
+        } finally {
+            response.close();
+        }
+    }
+
+    private void writePayload(PayloadBuffer buffer, Submittable item) {
+        try {
+            mapper.writeValue(buffer, item);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void itemPosted(Submittable item, String itemUri, ScheduledStart start, ItemResponse response, int identity) {
+        final long resourceBetween = latencyMetrics.recordSince(
+                Operations.itemCreate(itemTypeName(item.getClass())),
+                start.getIntendedStartNanos()
+        );
+        if (sampleItemLog()) {
+            logger.info("Submitted {} {} in {}ms", itemTypeName(item.getClass()), item.getAlias(), TimeUnit.NANOSECONDS.toMillis(resourceBetween));
+        }
+        if (response.getStatusCode() != 201) {
+            logger.error("Unexpected status code {} when posting {} to {}; response body is {}",
+                    response.getStatusCode(),
+                    item,
+                    itemUri,
+                    response.getBody()
+            );
+            throw new RuntimeException("Server error " + response);
+        }
+        logger.debug("created {}", response.getLocation());
+        resourcePool.itemCreated(response.getLocation(), identity);
+    }
+
+    /**
+     * Whether to log this item at INFO: one in every logging.itemSampleEvery, or none if that is 0.
+     */
+    private boolean sampleItemLog() {
+        return itemLogSampleEvery > 0
+                && logger.isInfoEnabled()
+                && itemLogCounter.getAndIncrement() % itemLogSampleEvery == 0;
+    }
+
+    void postBatch(List<Submittable> batch, ScheduledStart start, URI submissionLocation, Map<Class, String> typeToSubmissionPath) {
+        String batchUri = batchUri(batch, submissionLocation, typeToSubmissionPath);
+        ItemResponse response;
+        try {
+            ResponseEntity<String> responseEntity = restTemplate.postForEntity(batchUri, batch, String.class);
+            response = new ItemResponse(
+                    responseEntity.getStatusCodeValue(),
+                    responseEntity.getHeaders().getLocation(),
+                    responseEntity.getBody()
             );
+        } catch (HttpStatusCodeException e) {
+            response = new ItemResponse(e.getRawStatusCode(), null, e.getResponseBodyAsString());
+        }
+        batchPosted(batch, batchUri, start, response);
+    }
 
+    CompletableFuture<ItemResponse> postBatchAsync(List<Submittable> batch, ScheduledStart start, URI submissionLocation, Map<Class, String> typeToSubmissionPath) {
+        String batchUri = batchUri(batch, submissionLocation, typeToSubmissionPath);
 
-            logger.info("Submission URL " + submissionLocation);
-            if (submitted) updateSubmissionStatus(submissionLocation);
+        return asyncItemTransport.post(batchUri, batch).thenApply(response -> {
+            batchPosted(batch, batchUri, start, response);
+            return response;
+        });
+    }
 
-            submissionCounter++;
+    /**
+     * Link the items to the submission and work out where to post them: the create link of their type, followed by
+     * batch.path.
+     */
+    private String batchUri(List<Submittable> batch, URI submissionLocation, Map<Class, String> typeToSubmissionPath) {
+        Class type = batch.get(0).getClass();
+        batch.forEach(item -> ((PartOfSubmission) item).setSubmission(submissionLocation.toASCIIString()));
+
+        String itemUri = typeToSubmissionPath.get(type);
+        if (itemUri == null) {
+            throw new NullPointerException("no submission URI for class " + type);
         }
-    };
+        return itemUri + batchPath;
+    }
+
+    /**
+     * Record the latency of a batch whatever its outcome, as {@link #itemPosted} does for single items, then fail if
+     * the server did not accept it.
+     */
+    private void batchPosted(List<Submittable> batch, String batchUri, ScheduledStart start, ItemResponse response) {
+        String type = itemTypeName(batch.get(0).getClass());
+        long batchNanos = latencyMetrics.recordSince(Operations.itemBatch(type), start.getIntendedStartNanos());
+        latencyMetrics.record(Operations.itemBatchPerItem(type), batchNanos / batch.size(), batch.size());
+        logger.info("Submitted batch of {} {} in {}ms", batch.size(), type, TimeUnit.NANOSECONDS.toMillis(batchNanos));
+
+        if (response.getStatusCode() / 100 != 2) {
+            logger.error("Unexpected status code {} when posting {} items to {}; response body is {}",
+                    response.getStatusCode(),
+                    batch.size(),
+                    batchUri,
+                    response.getBody()
+            );
+            throw new RuntimeException("Server error " + response);
+        }
+    }
 
-    private void updateSubmissionStatus(URI submissionLocation) {
-        Link submissionStatusLink = apiLinkDiscovery.discoverNamedLink(restTemplate,submissionLocation,  "submissionStatus", "self");
+    /**
+     * Wait for the submission to become submittable, then PATCH its status to Submitted. The waiting is done by the
+     * shared {@link StatusPoller}, so no thread is held while the server validates the submission.
+     */
+    private CompletableFuture<Void> updateSubmissionStatus(URI submissionLocation, ScheduledStart start) {
+        Link submissionStatusLink = discoverLink(submissionLocation, "submissionStatus", "self");
         String submissionStatusLocation = submissionStatusLink.getHref();
 
         logger.info("Submission {} status {}", submissionLocation, submissionStatusLocation);
 
-        Link availableStatusesLink = null;
-        long startTime = System.nanoTime();
-        int attemptCounter = 0;
+        long itemsCompleteNanos = System.nanoTime();
 
-        while (availableStatusesLink == null && timeElapsedInSeconds(startTime) < 30 && attemptCounter < 60) {
-            ++attemptCounter;
-            logger.info("Searching for availableStatuses for {}, attempt {}, {}", submissionLocation, attemptCounter, timeElapsedInSeconds(startTime));
-            try {
-                availableStatusesLink = apiLinkDiscovery.discoverNamedLink(restTemplate,submissionLocation, "submissionStatus", "self", "availableStatuses");
-            } catch (IllegalStateException e) {
-                logger.info("available status link is not present, may retry");
+        return statusPoller.poll("availableStatuses for " + submissionLocation,
+                () -> hasAvailableStatuses(submissionStatusLocation)
+        ).thenCompose(submittable -> {
+            if (!submittable) {
+                logger.info("availableStatuses not found for {}", submissionLocation);
+                return CompletableFuture.completedFuture(null);
             }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+            latencyMetrics.recordSince(Operations.SUBMISSION_TIME_TO_SUBMITTABLE, itemsCompleteNanos);
+
+            if (!patchSubmissionStatus(submissionLocation, submissionStatusLocation)) {
+                return CompletableFuture.completedFuture(null);
             }
+            latencyMetrics.recordSince(Operations.SUBMISSION_TIME_TO_SUBMITTED, start.getIntendedStartNanos());
+
+            if (!lifecycleTracker.isEnabled()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return lifecycleTracker.track(submissionLocation, submissionStatusLocation, processingStatusesHref(submissionLocation));
+        });
+    }
+
+    private String processingStatusesHref(URI submissionLocation) {
+        try {
+            return discoverLink(submissionLocation, processingStatusesRel).expand().getHref();
+        } catch (IllegalStateException e) {
+            logger.warn("No {} link for {}, only following the submission status", processingStatusesRel, submissionLocation);
+            return null;
+        } catch (RestClientException e) {
+            logger.warn("Could not discover the {} link for {}, only following the submission status: {}",
+                    processingStatusesRel, submissionLocation, e.toString());
+            return null;
         }
+    }
 
-        if (availableStatusesLink == null) {
-            logger.info("availableStatuses not found for {} after {} attempts", submissionLocation, attemptCounter);
-            return;
+    private boolean hasAvailableStatuses(String submissionStatusLocation) {
+        try {
+            discoverLink(URI.create(submissionStatusLocation), "availableStatuses");
+            return true;
+        } catch (IllegalStateException e) {
+            logger.debug("available status link is not present for {}, may retry", submissionStatusLocation);
+            return false;
         }
+    }
 
+    private boolean patchSubmissionStatus(URI submissionLocation, String submissionStatusLocation) {
         HttpEntity<StatusUpdate> patchStatusEntity = new HttpEntity<>(new StatusUpdate("Submitted"));
 
         try {
+            long patchStartNanos = System.nanoTime();
             restTemplate.exchange(
                     submissionStatusLocation,
                     HttpMethod.PATCH,
@@ -227,21 +886,22 @@ public class StressTestServiceImpl implements StressTestService {
                     new ParameterizedTypeReference<Resource<SubmissionStatus>>() {
                     }
             );
+            latencyMetrics.recordSince(Operations.STATUS_PATCH, patchStartNanos);
+            return true;
         } catch (HttpClientErrorException e) {
             logger.error("HTTP error when patching submission status");
             logger.error("Submission {} status {}", submissionLocation, submissionStatusLocation);
             logger.error(e.getResponseBodyAsString());
             logger.error(e.toString());
+            failedStatusUpdates.increment();
+            return false;
+        } catch (RestClientException e) {
+            logger.error("Error when patching submission {} status {}: {}", submissionLocation, submissionStatusLocation, e.toString());
+            failedStatusUpdates.increment();
+            return false;
         }
     }
 
-    private double timeElapsedInSeconds(long referencePointInNanoSeconds) {
-        long diffInNanos = System.nanoTime() - referencePointInNanoSeconds;
-        double diffInSeconds = diffInNanos / 1000000000;
-        logger.info("logging {} {}", diffInNanos, diffInSeconds);
-        return diffInSeconds;
-    }
-
     private class StatusUpdate {
         private String status;
 
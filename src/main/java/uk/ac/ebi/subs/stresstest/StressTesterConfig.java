@@ -3,12 +3,35 @@ package uk.ac.ebi.subs.stresstest;
 import com.fasterxml.jackson.databind.DeserializationConfig;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
 import org.apache.http.Header;
 import org.apache.http.HttpHeaders;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.ManagedNHttpClientConnectionFactory;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
 import org.apache.http.message.BasicHeader;
+import org.apache.http.nio.conn.ManagedNHttpClientConnection;
+import org.apache.http.nio.conn.NHttpConnectionFactory;
+import org.apache.http.nio.reactor.IOReactorException;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,15 +40,29 @@ import org.springframework.hateoas.Resource;
 import org.springframework.hateoas.hal.Jackson2HalModule;
 import org.springframework.hateoas.mvc.TypeConstrainedMappingJackson2HttpMessageConverter;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.OkHttp3ClientHttpRequestFactory;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.client.RestOperations;
 import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.subs.stresstest.auth.AapTokenManager;
+import uk.ac.ebi.subs.stresstest.auth.AuthorizationInterceptor;
+import uk.ac.ebi.subs.stresstest.http.ConnectionPoolMetrics;
+import uk.ac.ebi.subs.stresstest.http.InstrumentedConnectionManager;
+import uk.ac.ebi.subs.stresstest.http.InstrumentedNHttpConnectionManager;
+import uk.ac.ebi.subs.stresstest.http.OkHttpPoolEventListener;
+import uk.ac.ebi.subs.stresstest.http.OkHttpRequestLimiter;
+import uk.ac.ebi.subs.stresstest.metrics.LatencyMetrics;
+import uk.ac.ebi.subs.stresstest.trace.TraceRecorder;
+import uk.ac.ebi.subs.stresstest.trace.TracingInterceptor;
+import uk.ac.ebi.subs.stresstest.transport.AsyncItemTransport;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 /**
@@ -40,38 +77,197 @@ public class StressTesterConfig {
     @Value("${aap.password}")
     String aapPassword;
 
-    @Value("${aap.url}")
-    String aapURL;
+    @Value("${linkCache.maxEntries:10000}")
+    int linkCacheMaxEntries;
+    @Value("${linkCache.ttlSeconds:3600}")
+    long linkCacheTtlSeconds;
 
-    private static final int TOTAL = 1000;
-    private static final int PER_ROUTE = 1000;
+    @Value("${transport.async.ioThreads:0}")
+    int asyncIoThreads;
 
+    @Value("${protocol:http}")
+    String protocol;
+
+    @Value("${http.version:1.1}")
+    String httpVersion;
+    @Value("${http.maxConnTotal:1000}")
+    int maxConnTotal;
+    @Value("${http.maxConnPerRoute:1000}")
+    int maxConnPerRoute;
+    @Value("${http.connectTimeoutMs:0}")
+    int connectTimeoutMs;
+    @Value("${http.socketTimeoutMs:0}")
+    int socketTimeoutMs;
+    @Value("${http.leaseTimeoutMs:0}")
+    int leaseTimeoutMs;
+    @Value("${http.keepAliveMs:0}")
+    long keepAliveMs;
+    @Value("${http.validateAfterInactivityMs:2000}")
+    int validateAfterInactivityMs;
+    @Value("${http.evictIdleSeconds:0}")
+    long evictIdleSeconds;
+
+    /**
+     * Discovered links, shared by the team link lookups and the item type router.
+     */
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder restTemplateBuilder) {
-        final RestTemplate build = restTemplateBuilder.basicAuthorization(aapUsername, aapPassword).build();
-        final String jwtToken = build.getForObject(aapURL, String.class);
-        List<Header> headerList = new ArrayList<>();
-        headerList.add(new BasicHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE));
-        headerList.add(new BasicHeader(HttpHeaders.AUTHORIZATION,"Bearer " + jwtToken));
-        RestTemplate restTemplate = new RestTemplate();
+    public LinkCache linkCache() {
+        return new LinkCache(linkCacheMaxEntries, TimeUnit.SECONDS.toNanos(linkCacheTtlSeconds));
+    }
 
-        HttpClient httpClient = HttpClientBuilder.create()
-                .setDefaultHeaders(headerList)
-                .setMaxConnTotal(TOTAL)
-                .setMaxConnPerRoute(PER_ROUTE)
-                .build();
-        restTemplate.setRequestFactory(new HttpComponentsClientHttpRequestFactory(httpClient));
+    /**
+     * The HTTP client behind the rest template, without its interceptors, for posting pooled request bodies.
+     */
+    @Bean
+    public ClientHttpRequestFactory apiRequestFactory(LatencyMetrics latencyMetrics, ConnectionPoolMetrics poolMetrics) {
+        List<Header> headerList = defaultHeaders();
+        if ("2".equals(httpVersion)) {
+            return new OkHttp3ClientHttpRequestFactory(okHttpClient(headerList, latencyMetrics, poolMetrics));
+        }
+        return new HttpComponentsClientHttpRequestFactory(httpClient(headerList, latencyMetrics, poolMetrics));
+    }
+
+    @Bean
+    public RestTemplate restTemplate(AapTokenManager tokenManager, TraceRecorder traceRecorder,
+                                     ClientHttpRequestFactory apiRequestFactory) {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.setRequestFactory(apiRequestFactory);
         List<HttpMessageConverter<?>> converters = restTemplate.getMessageConverters();
         converters.add(0,getHalMessageConverter());
+        restTemplate.getInterceptors().add(new AuthorizationInterceptor(tokenManager));
+        if (traceRecorder.isEnabled()) {
+            restTemplate.getInterceptors().add(new TracingInterceptor(traceRecorder));
+        }
         return restTemplate;
     }
 
+    /**
+     * Pooled HTTP/1.1 client, recording lease waits and connection creation in the pool metrics.
+     */
+    private HttpClient httpClient(List<Header> headerList, LatencyMetrics latencyMetrics, ConnectionPoolMetrics poolMetrics) {
+        HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> connectionFactory = (route, config) -> {
+            poolMetrics.connectionCreated();
+            return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+        };
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(connectionFactory);
+        connectionManager.setMaxTotal(maxConnTotal);
+        connectionManager.setDefaultMaxPerRoute(maxConnPerRoute);
+        connectionManager.setValidateAfterInactivity(validateAfterInactivityMs);
+        connectionManager.setDefaultSocketConfig(SocketConfig.custom().setSoTimeout(socketTimeoutMs).build());
+        poolMetrics.register("http", connectionManager::getTotalStats);
+
+        HttpClientBuilder builder = HttpClientBuilder.create()
+                .setDefaultHeaders(headerList)
+                .setDefaultRequestConfig(requestConfig())
+                .setConnectionManager(new InstrumentedConnectionManager(connectionManager, latencyMetrics, poolMetrics))
+                .setKeepAliveStrategy(keepAliveStrategy());
+        if (evictIdleSeconds > 0) {
+            builder.evictIdleConnections(evictIdleSeconds, TimeUnit.SECONDS);
+        }
+        return builder.build();
+    }
+
+    /**
+     * HTTP/2 client: prior knowledge over plain http, negotiated (falling back to HTTP/1.1) over https. The pool
+     * limits are applied to concurrent requests by {@link OkHttpRequestLimiter}, which is what the "http2" pool
+     * figures report.
+     */
+    private OkHttpClient okHttpClient(List<Header> headerList, LatencyMetrics latencyMetrics, ConnectionPoolMetrics poolMetrics) {
+        List<Protocol> protocols = "https".equals(protocol)
+                ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                : Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE);
+        ConnectionPool connectionPool = new ConnectionPool(maxConnPerRoute,
+                keepAliveMs > 0 ? keepAliveMs : TimeUnit.MINUTES.toMillis(5), TimeUnit.MILLISECONDS);
+        OkHttpRequestLimiter requestLimiter = new OkHttpRequestLimiter(maxConnTotal, maxConnPerRoute, leaseTimeoutMs);
+        poolMetrics.register("http2", requestLimiter::stats);
+
+        return new OkHttpClient.Builder()
+                .protocols(protocols)
+                .connectionPool(connectionPool)
+                .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(socketTimeoutMs, TimeUnit.MILLISECONDS)
+                .writeTimeout(socketTimeoutMs, TimeUnit.MILLISECONDS)
+                .eventListenerFactory(OkHttpPoolEventListener.factory(latencyMetrics, poolMetrics))
+                .addInterceptor(requestLimiter)
+                .addInterceptor(chain -> {
+                    Request.Builder request = chain.request().newBuilder();
+                    headerList.forEach(header -> request.header(header.getName(), header.getValue()));
+                    return chain.proceed(request.build());
+                })
+                .build();
+    }
+
+    /**
+     * Non-blocking client for item POSTs, used instead of the rest template when transport=async, recording lease
+     * waits and connection creation in the pool metrics like the blocking client.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "transport", havingValue = "async")
+    public AsyncItemTransport asyncItemTransport(AapTokenManager tokenManager, TraceRecorder traceRecorder,
+                                                 LatencyMetrics latencyMetrics, ConnectionPoolMetrics poolMetrics) throws IOReactorException {
+        IOReactorConfig.Builder ioReactorConfig = IOReactorConfig.custom()
+                .setConnectTimeout(connectTimeoutMs)
+                .setSoTimeout(socketTimeoutMs);
+        if (asyncIoThreads > 0) {
+            ioReactorConfig.setIoThreadCount(asyncIoThreads);
+        }
+
+        NHttpConnectionFactory<ManagedNHttpClientConnection> connectionFactory = (session, config) -> {
+            poolMetrics.connectionCreated();
+            return ManagedNHttpClientConnectionFactory.INSTANCE.create(session, config);
+        };
+        PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+                new DefaultConnectingIOReactor(ioReactorConfig.build()), connectionFactory);
+        connectionManager.setMaxTotal(maxConnTotal);
+        connectionManager.setDefaultMaxPerRoute(maxConnPerRoute);
+        poolMetrics.register("async", connectionManager::getTotalStats);
+
+        CloseableHttpAsyncClient httpAsyncClient = HttpAsyncClients.custom()
+                .setDefaultHeaders(defaultHeaders())
+                .setDefaultRequestConfig(requestConfig())
+                .setConnectionManager(new InstrumentedNHttpConnectionManager(connectionManager, latencyMetrics, poolMetrics))
+                .setKeepAliveStrategy(keepAliveStrategy())
+                .build();
+        return new AsyncItemTransport(httpAsyncClient, new ObjectMapper(), traceRecorder, tokenManager::authorization);
+    }
+
+    private RequestConfig requestConfig() {
+        return RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMs)
+                .setSocketTimeout(socketTimeoutMs)
+                .setConnectionRequestTimeout(leaseTimeoutMs)
+                .build();
+    }
+
+    /**
+     * Keep connections alive as long as the server allows, capped at http.keepAliveMs if that is set.
+     */
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        return (response, context) -> {
+            long serverKeepAliveMs = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            if (keepAliveMs <= 0) {
+                return serverKeepAliveMs;
+            }
+            return serverKeepAliveMs > 0 ? Math.min(serverKeepAliveMs, keepAliveMs) : keepAliveMs;
+        };
+    }
+
     @Bean(name = "aapRestOperations")
     RestOperations rest(RestTemplateBuilder restTemplateBuilder) {
         return restTemplateBuilder.basicAuthorization(aapUsername, aapPassword).build();
     }
 
-    private HttpMessageConverter getHalMessageConverter() {
+    /**
+     * Headers sent with every API request. The AAP token is added per request, see {@link AapTokenManager}.
+     */
+    private static List<Header> defaultHeaders() {
+        return Collections.singletonList(new BasicHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE));
+    }
+
+    /**
+     * Package-private for the HAL parsing benchmark.
+     */
+    static HttpMessageConverter getHalMessageConverter() {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
         objectMapper.registerModule(new Jackson2HalModule());
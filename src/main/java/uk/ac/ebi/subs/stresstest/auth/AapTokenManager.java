@@ -0,0 +1,230 @@
+package uk.ac.ebi.subs.stresstest.auth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestOperations;
+import uk.ac.ebi.subs.stresstest.metrics.LatencyMetrics;
+import uk.ac.ebi.subs.stresstest.metrics.Operations;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds an AAP token for each identity the load is spread across, and refreshes each token in the background ahead
+ * of its expiry, so requests never wait for a token once the run has started.
+ * <p>
+ * Identities come from {@code aap.identities} ({@code username:password,...}), or default to {@code aap.username}.
+ * Each submission is assigned the next identity in turn, and every request made for that submission, including its
+ * items and status checks, is sent with that identity's token: work run for a submission is wrapped with
+ * {@link #bind(int, Runnable)}, and {@link #authorization()} returns the token bound to the current thread.
+ * <p>
+ * The expiry is read from the token's {@code exp} claim, or assumed to be {@code aap.defaultTtlSeconds} away if the
+ * token has none. Token requests are recorded as {@link Operations#AUTH_TOKEN}.
+ * <p>
+ * Nothing is fetched at startup, so modes that send no API requests (comparing results, coordinating workers,
+ * serving the mock) don't need AAP. Tokens are fetched by {@link #fetchTokens()} before a run starts, or on the first
+ * {@link #authorization()} otherwise, which also starts the background refresh.
+ */
+@Component
+public class AapTokenManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(AapTokenManager.class);
+
+    private static final ThreadLocal<Integer> boundIdentity = new ThreadLocal<>();
+
+    @Value("${aap.url}")
+    String aapUrl;
+    @Value("${aap.username}")
+    String aapUsername;
+    @Value("${aap.password}")
+    String aapPassword;
+    @Value("${aap.identities:}")
+    String[] identitySpecs;
+    @Value("${aap.refreshAheadSeconds:300}")
+    long refreshAheadSeconds;
+    @Value("${aap.defaultTtlSeconds:3600}")
+    long defaultTtlSeconds;
+    @Value("${aap.refreshCheckSeconds:10}")
+    long refreshCheckSeconds;
+
+    @Autowired
+    RestTemplateBuilder restTemplateBuilder;
+    @Autowired
+    LatencyMetrics latencyMetrics;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<Identity> identities = new ArrayList<>();
+    private final AtomicLong nextIdentity = new AtomicLong();
+    private volatile boolean fetched;
+    private ScheduledExecutorService refresher;
+
+    @PostConstruct
+    void readIdentities() {
+        for (String spec : identitySpecs) {
+            if (spec.isEmpty()) continue;
+            String[] usernameAndPassword = spec.split(":", 2);
+            if (usernameAndPassword.length != 2) {
+                throw new IllegalArgumentException("aap.identities entries must be username:password, not " + spec);
+            }
+            identities.add(new Identity(usernameAndPassword[0], usernameAndPassword[1]));
+        }
+        if (identities.isEmpty()) {
+            identities.add(new Identity(aapUsername, aapPassword));
+        }
+    }
+
+    /**
+     * Fetch a token for every identity and start refreshing them, unless that has already been done.
+     */
+    public void fetchTokens() {
+        if (fetched) return;
+        synchronized (this) {
+            if (fetched) return;
+
+            identities.forEach(this::refresh);
+            logger.info("Fetched AAP tokens for {} identities", identities.size());
+
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("aap-refresh-");
+            threadFactory.setDaemon(true);
+            refresher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            refresher.scheduleWithFixedDelay(this::refreshExpiring, refreshCheckSeconds, refreshCheckSeconds, TimeUnit.SECONDS);
+            fetched = true;
+        }
+    }
+
+    @PreDestroy
+    synchronized void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the Authorization header value for the identity bound to the current thread, or the first identity
+     */
+    public String authorization() {
+        fetchTokens();
+        Integer identity = boundIdentity.get();
+        return "Bearer " + identities.get(identity == null ? 0 : identity).token;
+    }
+
+    /**
+     * @return the identity to use for the next submission, rotating through all of them
+     */
+    public int nextIdentity() {
+        return (int) (nextIdentity.getAndIncrement() % identities.size());
+    }
+
+    /**
+     * Start the rotation at the given identity, e.g. so distributed workers don't all start with the first one.
+     */
+    public void rotateFrom(int identity) {
+        nextIdentity.set(identity);
+    }
+
+    /**
+     * @return the identity bound to the current thread, or the first identity
+     */
+    public int currentIdentity() {
+        Integer identity = boundIdentity.get();
+        return identity == null ? 0 : identity;
+    }
+
+    /**
+     * @return a task that runs with the given identity bound to its thread
+     */
+    public Runnable bind(int identity, Runnable task) {
+        return () -> {
+            Integer previous = boundIdentity.get();
+            boundIdentity.set(identity);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    boundIdentity.remove();
+                } else {
+                    boundIdentity.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return a task that runs with the current thread's identity bound to whichever thread runs it
+     */
+    public Runnable bindCurrent(Runnable task) {
+        return bind(currentIdentity(), task);
+    }
+
+    public int getIdentityCount() {
+        return identities.size();
+    }
+
+    private void refreshExpiring() {
+        long refreshBefore = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(refreshAheadSeconds);
+        for (Identity identity : identities) {
+            if (identity.expiresAtMillis <= refreshBefore) {
+                try {
+                    refresh(identity);
+                } catch (RuntimeException e) {
+                    logger.warn("Could not refresh the AAP token for {}, will retry: {}", identity.username, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void refresh(Identity identity) {
+        long startNanos = System.nanoTime();
+        String token = identity.client.getForObject(aapUrl, String.class);
+        long tokenNanos = latencyMetrics.recordSince(Operations.AUTH_TOKEN, startNanos);
+
+        identity.expiresAtMillis = expiresAtMillis(token);
+        identity.token = token;
+        logger.info("Fetched AAP token for {} in {}ms, expires in {}s",
+                identity.username,
+                TimeUnit.NANOSECONDS.toMillis(tokenNanos),
+                TimeUnit.MILLISECONDS.toSeconds(identity.expiresAtMillis - System.currentTimeMillis()));
+    }
+
+    long expiresAtMillis(String token) {
+        String[] parts = token.split("\\.", -1);
+        if (parts.length == 3) {
+            try {
+                JsonNode exp = mapper.readTree(Base64.getUrlDecoder().decode(parts[1])).path("exp");
+                if (exp.canConvertToLong()) {
+                    return TimeUnit.SECONDS.toMillis(exp.asLong());
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                logger.debug("Could not read the expiry of the AAP token", e);
+            }
+        }
+        return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(defaultTtlSeconds);
+    }
+
+    private class Identity {
+        private final String username;
+        private final RestOperations client;
+        private volatile String token;
+        private volatile long expiresAtMillis;
+
+        private Identity(String username, String password) {
+            this.username = username;
+            this.client = restTemplateBuilder.basicAuthorization(username, password).build();
+        }
+    }
+}
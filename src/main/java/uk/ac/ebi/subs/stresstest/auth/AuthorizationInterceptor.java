@@ -0,0 +1,27 @@
+package uk.ac.ebi.subs.stresstest.auth;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Adds the current AAP token to every request of a rest template.
+ */
+public class AuthorizationInterceptor implements ClientHttpRequestInterceptor {
+
+    private final AapTokenManager tokenManager;
+
+    public AuthorizationInterceptor(AapTokenManager tokenManager) {
+        this.tokenManager = tokenManager;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        request.getHeaders().set(HttpHeaders.AUTHORIZATION, tokenManager.authorization());
+        return execution.execute(request, body);
+    }
+}
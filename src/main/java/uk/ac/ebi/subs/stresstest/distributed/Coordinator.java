@@ -0,0 +1,237 @@
+package uk.ac.ebi.subs.stresstest.distributed;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.subs.StressTesterApplication;
+import uk.ac.ebi.subs.stresstest.metrics.HistogramCodec;
+import uk.ac.ebi.subs.stresstest.metrics.LatencyMetrics;
+import uk.ac.ebi.subs.stresstest.results.BaselineComparison;
+import uk.ac.ebi.subs.stresstest.results.RunResults;
+import uk.ac.ebi.subs.stresstest.results.RunSummary;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Splits the workload between workers, starts them together and merges their results into one report.
+ * <p>
+ * Workers are either already running at the addresses in {@code distributed.workers}, or launched by the coordinator
+ * as local processes when {@code distributed.localWorkers} is set, each with the coordinator's own command line
+ * arguments and its own metrics directory and log file under {@code metrics.dir}. The merged results are written and
+ * compared with the baseline by the coordinator; workers write their own results under their metrics directories.
+ */
+@Component
+public class Coordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(Coordinator.class);
+
+    @Value("${distributed.workers:}")
+    String[] workers;
+    @Value("${distributed.localWorkers:0}")
+    int localWorkers;
+    @Value("${distributed.localWorkerBasePort:9101}")
+    int localWorkerBasePort;
+    @Value("${distributed.startDelayMs:5000}")
+    long startDelayMs;
+    @Value("${distributed.workerStartupTimeoutSeconds:120}")
+    long workerStartupTimeoutSeconds;
+    @Value("${distributed.stopWorkers:true}")
+    boolean stopWorkers;
+    @Value("${metrics.dir:metrics}")
+    String metricsDir;
+    @Value("${trace.file:}")
+    String traceFile;
+
+    @Autowired
+    LatencyMetrics latencyMetrics;
+    @Autowired
+    RunResults runResults;
+    @Autowired
+    BaselineComparison baselineComparison;
+
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    public void coordinate(String... args) {
+        List<Process> processes = new ArrayList<>();
+        List<String> addresses = new ArrayList<>();
+        Arrays.stream(workers).filter(worker -> !worker.isEmpty()).forEach(addresses::add);
+
+        try {
+            for (int i = 0; i < localWorkers; i++) {
+                int port = localWorkerBasePort + i;
+                processes.add(launchLocalWorker(i, port, args));
+                addresses.add("localhost:" + port);
+            }
+            if (addresses.isEmpty()) {
+                throw new IllegalStateException("no workers: set distributed.workers or distributed.localWorkers");
+            }
+
+            awaitHealthy(addresses);
+
+            long startAt = System.currentTimeMillis() + startDelayMs;
+            logger.info("Starting {} workers at {}", addresses.size(), Instant.ofEpochMilli(startAt));
+
+            List<CompletableFuture<WorkerResult>> runs = new ArrayList<>();
+            for (int i = 0; i < addresses.size(); i++) {
+                String runUri = "http://" + addresses.get(i) + "/run";
+                WorkAssignment assignment = new WorkAssignment(i, addresses.size(), startAt);
+                runs.add(CompletableFuture.supplyAsync(
+                        () -> restTemplate.postForObject(runUri, assignment, WorkerResult.class)
+                ));
+            }
+
+            List<WorkerResult> results = runs.stream().map(CompletableFuture::join).collect(Collectors.toList());
+            report(results);
+        } finally {
+            if (stopWorkers) {
+                addresses.forEach(this::stopWorker);
+            }
+            processes.forEach(this::awaitExit);
+        }
+    }
+
+    private void report(List<WorkerResult> results) {
+        Map<String, Histogram> merged = new TreeMap<>();
+        long submissions = 0;
+        long failedSubmissions = 0;
+        long failedItems = 0;
+        long firstStart = Long.MAX_VALUE;
+        long lastEnd = Long.MIN_VALUE;
+
+        for (WorkerResult result : results) {
+            logger.info("Worker {}: {} submissions, {} failed, {}ms",
+                    result.getShardIndex(), result.getSubmissions(), result.getFailedSubmissions(), result.getDurationMillis());
+
+            submissions += result.getSubmissions();
+            failedSubmissions += result.getFailedSubmissions();
+            failedItems += result.getFailedItems();
+            firstStart = Math.min(firstStart, result.getStartEpochMillis());
+            lastEnd = Math.max(lastEnd, result.getStartEpochMillis() + result.getDurationMillis());
+
+            result.getHistograms().forEach((operation, encoded) ->
+                    merged.computeIfAbsent(operation, op -> new Histogram(3)).add(HistogramCodec.decode(encoded))
+            );
+        }
+
+        double seconds = (lastEnd - firstStart) / 1000d;
+        logger.info("All workers: {} submissions, {} failed, in {}s ({} submissions/s)",
+                submissions, failedSubmissions,
+                String.format(Locale.ROOT, "%.1f", seconds),
+                String.format(Locale.ROOT, "%.2f", seconds > 0 ? submissions / seconds : 0));
+        latencyMetrics.reportMerged(merged, "merged-latency");
+
+        RunSummary summary = RunSummary.of(merged, seconds);
+        summary.setStartEpochMillis(firstStart);
+        summary.setSubmissions(submissions);
+        summary.setFailedSubmissions(failedSubmissions);
+        summary.setFailedItems(failedItems);
+        baselineComparison.compareIfConfigured(runResults.write(summary, merged));
+    }
+
+    private Process launchLocalWorker(int index, int port, String... args) {
+        String javaBin = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classPath = System.getProperty("java.class.path");
+        Path workerMetricsDir = Paths.get(metricsDir, "worker-" + index);
+
+        List<String> command = new ArrayList<>();
+        command.add(javaBin);
+        if (!classPath.contains(File.pathSeparator) && classPath.endsWith(".jar")) {
+            command.add("-jar");
+            command.add(classPath);
+        } else {
+            command.add("-cp");
+            command.add(classPath);
+            command.add(StressTesterApplication.class.getName());
+        }
+        // ports and files the coordinator already holds are not passed on: the mock API and the Prometheus endpoint
+        // stay with the coordinator, and each worker traces to a file of its own
+        Arrays.stream(args)
+                .filter(arg -> !arg.startsWith("--distributed.") && !arg.startsWith("--metrics.dir")
+                        && !arg.startsWith("--results.") && !arg.startsWith("--compare.")
+                        && !arg.startsWith("--mock.") && !arg.startsWith("--metrics.prometheus.")
+                        && !arg.startsWith("--trace.file"))
+                .forEach(command::add);
+        command.add("--distributed.mode=worker");
+        command.add("--distributed.workerPort=" + port);
+        command.add("--metrics.dir=" + workerMetricsDir);
+        if (!traceFile.isEmpty()) {
+            command.add("--trace.file=" + workerMetricsDir.resolve(Paths.get(traceFile).getFileName()));
+        }
+
+        try {
+            Files.createDirectories(workerMetricsDir);
+            Path log = workerMetricsDir.resolve("worker.log");
+            logger.info("Launching local worker {} on port {}, logging to {}", index, port, log.toAbsolutePath());
+            return new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(log.toFile())
+                    .start();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void awaitHealthy(List<String> addresses) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(workerStartupTimeoutSeconds);
+        for (String address : addresses) {
+            while (true) {
+                try {
+                    restTemplate.getForObject("http://" + address + "/health", String.class);
+                    break;
+                } catch (RestClientException e) {
+                    if (System.nanoTime() > deadline) {
+                        throw new IllegalStateException("worker " + address + " did not become healthy", e);
+                    }
+                    sleepQuietly(500);
+                }
+            }
+        }
+        logger.info("All {} workers are ready", addresses.size());
+    }
+
+    private void stopWorker(String address) {
+        try {
+            restTemplate.postForObject("http://" + address + "/shutdown", null, String.class);
+        } catch (RestClientException e) {
+            logger.warn("Could not stop worker {}: {}", address, e.getMessage());
+        }
+    }
+
+    private void awaitExit(Process process) {
+        try {
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroy();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroy();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
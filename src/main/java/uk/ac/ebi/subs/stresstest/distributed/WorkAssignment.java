@@ -0,0 +1,44 @@
+package uk.ac.ebi.subs.stresstest.distributed;
+
+/**
+ * Sent by the coordinator to tell a worker which part of the workload to run, and when to start.
+ */
+public class WorkAssignment {
+
+    private int shardIndex;
+    private int shardCount;
+    private long startAtEpochMillis;
+
+    public WorkAssignment() {
+    }
+
+    public WorkAssignment(int shardIndex, int shardCount, long startAtEpochMillis) {
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+        this.startAtEpochMillis = startAtEpochMillis;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public void setShardIndex(int shardIndex) {
+        this.shardIndex = shardIndex;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public void setShardCount(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    public long getStartAtEpochMillis() {
+        return startAtEpochMillis;
+    }
+
+    public void setStartAtEpochMillis(long startAtEpochMillis) {
+        this.startAtEpochMillis = startAtEpochMillis;
+    }
+}
@@ -0,0 +1,75 @@
+package uk.ac.ebi.subs.stresstest.distributed;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Returned by a worker once its part of the workload is complete.
+ */
+public class WorkerResult {
+
+    private int shardIndex;
+    private long submissions;
+    private long failedSubmissions;
+    private long failedItems;
+    private long startEpochMillis;
+    private long durationMillis;
+    /** Compressed HdrHistogram encodings, base64, by operation. */
+    private Map<String, String> histograms = new HashMap<>();
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public void setShardIndex(int shardIndex) {
+        this.shardIndex = shardIndex;
+    }
+
+    public long getSubmissions() {
+        return submissions;
+    }
+
+    public void setSubmissions(long submissions) {
+        this.submissions = submissions;
+    }
+
+    public long getFailedSubmissions() {
+        return failedSubmissions;
+    }
+
+    public void setFailedSubmissions(long failedSubmissions) {
+        this.failedSubmissions = failedSubmissions;
+    }
+
+    public long getFailedItems() {
+        return failedItems;
+    }
+
+    public void setFailedItems(long failedItems) {
+        this.failedItems = failedItems;
+    }
+
+    public long getStartEpochMillis() {
+        return startEpochMillis;
+    }
+
+    public void setStartEpochMillis(long startEpochMillis) {
+        this.startEpochMillis = startEpochMillis;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public Map<String, String> getHistograms() {
+        return histograms;
+    }
+
+    public void setHistograms(Map<String, String> histograms) {
+        this.histograms = histograms;
+    }
+}
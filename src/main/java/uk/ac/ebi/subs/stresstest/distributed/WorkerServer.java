@@ -0,0 +1,158 @@
+package uk.ac.ebi.subs.stresstest.distributed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.subs.stresstest.Shard;
+import uk.ac.ebi.subs.stresstest.StressTestService;
+import uk.ac.ebi.subs.stresstest.auth.AapTokenManager;
+import uk.ac.ebi.subs.stresstest.execution.ExecutionEngine;
+import uk.ac.ebi.subs.stresstest.generator.GeneratorSpec;
+import uk.ac.ebi.subs.stresstest.metrics.HistogramCodec;
+import uk.ac.ebi.subs.stresstest.metrics.LatencyMetrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs parts of the workload on request from a {@link Coordinator}.
+ * <p>
+ * Listens on {@code distributed.workerPort} for:
+ * <ul>
+ * <li>{@code GET /health} - answers once the worker is ready</li>
+ * <li>{@code POST /run} - runs the {@link WorkAssignment} in the body, starting at its start time, and answers with
+ * a {@link WorkerResult} once done</li>
+ * <li>{@code POST /shutdown} - stops the worker</li>
+ * </ul>
+ */
+@Component
+public class WorkerServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkerServer.class);
+
+    @Value("${distributed.workerPort:9101}")
+    int port;
+    @Value("${searchDir:.}")
+    String searchDir;
+
+    @Autowired
+    StressTestService stressTestService;
+    @Autowired
+    GeneratorSpec generatorSpec;
+    @Autowired
+    LatencyMetrics latencyMetrics;
+    @Autowired
+    ExecutionEngine executionEngine;
+    @Autowired
+    AapTokenManager tokenManager;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final CountDownLatch shutdown = new CountDownLatch(1);
+
+    /**
+     * Serve requests until told to shut down.
+     */
+    public void serve() {
+        HttpServer server;
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("worker-http-");
+        threadFactory.setDaemon(true);
+        server.setExecutor(Executors.newCachedThreadPool(threadFactory));
+
+        server.createContext("/health", exchange -> respond(exchange, 200, "{\"status\":\"UP\"}"));
+        server.createContext("/run", this::handleRun);
+        server.createContext("/shutdown", exchange -> {
+            respond(exchange, 200, "{}");
+            shutdown.countDown();
+        });
+        server.start();
+        logger.info("Worker listening on port {}", port);
+
+        try {
+            shutdown.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server.stop(0);
+        logger.info("Worker stopped");
+    }
+
+    private void handleRun(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "{}");
+            return;
+        }
+        WorkAssignment assignment = mapper.readValue(exchange.getRequestBody(), WorkAssignment.class);
+        try {
+            respond(exchange, 200, mapper.writeValueAsString(run(assignment)));
+        } catch (RuntimeException e) {
+            logger.error("Run failed", e);
+            respond(exchange, 500, mapper.writeValueAsString(e.toString()));
+        }
+    }
+
+    private synchronized WorkerResult run(WorkAssignment assignment) {
+        Shard shard = new Shard(assignment.getShardIndex(), assignment.getShardCount());
+        latencyMetrics.reset();
+        tokenManager.rotateFrom(shard.getIndex());
+        tokenManager.fetchTokens();
+        long submissionsBefore = stressTestService.getSubmissionCount();
+        long failuresBefore = executionEngine.getFailedSubmissions();
+        long itemFailuresBefore = executionEngine.getFailedItems();
+
+        long waitMillis;
+        while ((waitMillis = assignment.getStartAtEpochMillis() - System.currentTimeMillis()) > 0) {
+            try {
+                Thread.sleep(waitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted before the start time", e);
+            }
+        }
+
+        long startEpochMillis = System.currentTimeMillis();
+        logger.info("Starting {}", shard);
+        if (generatorSpec.isEnabled()) {
+            stressTestService.submitGenerated(shard);
+        } else {
+            stressTestService.submitJsonInDir(Paths.get(searchDir), shard);
+        }
+
+        WorkerResult result = new WorkerResult();
+        result.setShardIndex(shard.getIndex());
+        result.setSubmissions(stressTestService.getSubmissionCount() - submissionsBefore);
+        result.setFailedSubmissions(executionEngine.getFailedSubmissions() - failuresBefore);
+        result.setFailedItems(executionEngine.getFailedItems() - itemFailuresBefore);
+        result.setStartEpochMillis(startEpochMillis);
+        result.setDurationMillis(System.currentTimeMillis() - startEpochMillis);
+        latencyMetrics.totals().forEach(
+                (operation, histogram) -> result.getHistograms().put(operation, HistogramCodec.encode(histogram))
+        );
+        return result;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
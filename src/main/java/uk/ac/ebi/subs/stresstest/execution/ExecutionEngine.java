@@ -0,0 +1,195 @@
+package uk.ac.ebi.subs.stresstest.execution;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs submission-level and item-level work on separate executors, each with its own limit on work in flight.
+ * <p>
+ * Submitting work blocks the caller while the limit is reached, so file loading and item fan-out slow down to the
+ * pace the executors can sustain instead of queueing without bound. Concurrency is therefore set by configuration
+ * rather than by the size of the common fork-join pool.
+ * <p>
+ * In {@code pool} mode each executor is a fixed-size thread pool. In {@code virtual} mode each task gets its own
+ * virtual thread, which needs a JDK that supports them; on older JDKs this falls back to {@code pool} mode.
+ */
+@Component
+public class ExecutionEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionEngine.class);
+
+    @Value("${execution.mode:pool}")
+    String mode;
+    @Value("${execution.submissionThreads:8}")
+    int submissionThreads;
+    @Value("${execution.itemThreads:64}")
+    int itemThreads;
+    @Value("${execution.maxSubmissionsInFlight:16}")
+    int maxSubmissionsInFlight;
+    @Value("${execution.maxItemsInFlight:256}")
+    int maxItemsInFlight;
+
+    private boolean virtual;
+    private ExecutorService submissionExecutor;
+    private ExecutorService itemExecutor;
+    private Semaphore submissionPermits;
+    private Semaphore itemPermits;
+
+    private final LongAdder failedSubmissions = new LongAdder();
+    private final LongAdder failedItems = new LongAdder();
+
+    @PostConstruct
+    void start() {
+        virtual = "virtual".equals(mode) && virtualThreadsAvailable();
+
+        submissionExecutor = virtual ? newVirtualThreadPerTaskExecutor() : newBoundedPool("submission-", submissionThreads, maxSubmissionsInFlight);
+        itemExecutor = virtual ? newVirtualThreadPerTaskExecutor() : newBoundedPool("item-", itemThreads, maxItemsInFlight);
+        submissionPermits = new Semaphore(maxSubmissionsInFlight);
+        itemPermits = new Semaphore(maxItemsInFlight);
+
+        if (virtual) {
+            logger.info("Execution engine using virtual threads, max {} submissions and {} items in flight",
+                    maxSubmissionsInFlight, maxItemsInFlight);
+        } else {
+            logger.info("Execution engine using {} submission threads and {} item threads, max {} submissions and {} items in flight",
+                    submissionThreads, itemThreads, maxSubmissionsInFlight, maxItemsInFlight);
+        }
+    }
+
+    /**
+     * @return whether work runs on virtual threads, rather than falling back to pools on an older JDK
+     */
+    public boolean usesVirtualThreads() {
+        return virtual;
+    }
+
+    @PreDestroy
+    void stop() {
+        submissionExecutor.shutdown();
+        itemExecutor.shutdown();
+    }
+
+    /**
+     * Run submission-level work, waiting first if the maximum number of submissions is already in flight.
+     * Failures are logged and counted here, as nothing upstream waits on an individual submission.
+     */
+    public CompletableFuture<Void> submitSubmission(Runnable task) {
+        return submit(task, submissionPermits, submissionExecutor)
+                .whenComplete((result, throwable) -> {
+                    if (throwable != null) {
+                        failedSubmissions.increment();
+                        logger.error("Submission failed", throwable);
+                    }
+                });
+    }
+
+    /**
+     * Run item-level work, waiting first if the maximum number of items is already in flight.
+     */
+    public CompletableFuture<Void> submitItem(Runnable task) {
+        return submit(task, itemPermits, itemExecutor).whenComplete(this::countItemFailure);
+    }
+
+    /**
+     * Start non-blocking item work, waiting first if the maximum number of items is already in flight. The item
+     * counts as in flight until the returned future completes, not just while the task runs.
+     */
+    public <T> CompletableFuture<T> submitAsyncItem(Supplier<CompletableFuture<T>> task) {
+        itemPermits.acquireUninterruptibly();
+        CompletableFuture<T> future;
+        try {
+            future = task.get();
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        return future.whenComplete((result, throwable) -> {
+            itemPermits.release();
+            countItemFailure(result, throwable);
+        });
+    }
+
+    /**
+     * Wait until no submission-level work is in flight.
+     */
+    public void awaitSubmissions() {
+        submissionPermits.acquireUninterruptibly(maxSubmissionsInFlight);
+        submissionPermits.release(maxSubmissionsInFlight);
+    }
+
+    public long getFailedSubmissions() {
+        return failedSubmissions.sum();
+    }
+
+    public long getFailedItems() {
+        return failedItems.sum();
+    }
+
+    public int getSubmissionsInFlight() {
+        return maxSubmissionsInFlight - submissionPermits.availablePermits();
+    }
+
+    public int getItemsInFlight() {
+        return maxItemsInFlight - itemPermits.availablePermits();
+    }
+
+    private void countItemFailure(Object result, Throwable throwable) {
+        if (throwable != null) {
+            failedItems.increment();
+        }
+    }
+
+    private CompletableFuture<Void> submit(Runnable task, Semaphore permits, ExecutorService executor) {
+        permits.acquireUninterruptibly();
+        try {
+            return CompletableFuture.runAsync(task, executor)
+                    .whenComplete((result, throwable) -> permits.release());
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private static ExecutorService newBoundedPool(String threadNamePrefix, int threads, int queueCapacity) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix);
+        threadFactory.setDaemon(true);
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory);
+    }
+
+    private static boolean virtualThreadsAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            logger.warn("Virtual threads are not available on Java {}, falling back to thread pools",
+                    System.getProperty("java.version"));
+            return false;
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("could not create virtual thread executor", e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package uk.ac.ebi.subs.stresstest.execution;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Waits for a group of asynchronous tasks to finish, without holding on to the tasks themselves, so the memory used
+ * does not grow with the number of tasks in the group.
+ */
+public class InFlightTracker {
+
+    private long inFlight = 0;
+    private Throwable firstFailure;
+
+    public void track(CompletableFuture<?> task) {
+        synchronized (this) {
+            inFlight++;
+        }
+        task.whenComplete((result, throwable) -> completed(throwable));
+    }
+
+    /**
+     * Wait for every tracked task to finish.
+     *
+     * @throws CompletionException wrapping the first failure, if any task failed
+     */
+    public synchronized void await() {
+        boolean interrupted = false;
+        while (inFlight > 0) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (firstFailure != null) {
+            throw firstFailure instanceof CompletionException
+                    ? (CompletionException) firstFailure
+                    : new CompletionException(firstFailure);
+        }
+    }
+
+    private synchronized void completed(Throwable throwable) {
+        inFlight--;
+        if (throwable != null && firstFailure == null) {
+            firstFailure = throwable;
+        }
+        if (inFlight == 0) {
+            notifyAll();
+        }
+    }
+}
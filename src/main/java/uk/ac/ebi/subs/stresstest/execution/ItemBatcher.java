@@ -0,0 +1,51 @@
+package uk.ac.ebi.subs.stresstest.execution;
+
+import uk.ac.ebi.subs.data.submittable.Submittable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Groups the items of one submission by type into batches of up to batchSize, handing each batch on as soon as it is
+ * full. {@link #flush()} hands on the remaining partial batches.
+ */
+public class ItemBatcher {
+
+    private final int batchSize;
+    private final Consumer<List<Submittable>> dispatchBatch;
+    private final Map<Class, List<Submittable>> pending = new HashMap<>();
+
+    public ItemBatcher(int batchSize, Consumer<List<Submittable>> dispatchBatch) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be at least 1, was " + batchSize);
+        }
+        this.batchSize = batchSize;
+        this.dispatchBatch = dispatchBatch;
+    }
+
+    public void add(Submittable item) {
+        List<Submittable> full = null;
+        synchronized (this) {
+            List<Submittable> batch = pending.computeIfAbsent(item.getClass(), type -> new ArrayList<>(batchSize));
+            batch.add(item);
+            if (batch.size() >= batchSize) {
+                full = pending.remove(item.getClass());
+            }
+        }
+        if (full != null) {
+            dispatchBatch.accept(full);
+        }
+    }
+
+    public void flush() {
+        List<List<Submittable>> remaining;
+        synchronized (this) {
+            remaining = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        remaining.forEach(dispatchBatch);
+    }
+}
@@ -0,0 +1,138 @@
+package uk.ac.ebi.subs.stresstest.generator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Shape of the synthetic workload. Counts of each submittable type are per submission.
+ */
+@Component
+public class GeneratorSpec {
+
+    @Value("${generator.enabled:false}")
+    boolean enabled;
+    @Value("${generator.seed:1}")
+    long seed;
+    @Value("${generator.teams:1}")
+    int teams;
+    @Value("${generator.teamPrefix:stress-test-team-}")
+    String teamPrefix;
+    @Value("${generator.aliasPrefix:stress}")
+    String aliasPrefix;
+    @Value("${generator.submissionsPerTeam:1}")
+    int submissionsPerTeam;
+    @Value("${generator.projects:1}")
+    int projects;
+    @Value("${generator.studies:1}")
+    int studies;
+    @Value("${generator.samples:100}")
+    int samples;
+    @Value("${generator.assays:100}")
+    int assays;
+    @Value("${generator.assayData:100}")
+    int assayData;
+    @Value("${generator.attributes:5}")
+    int attributes;
+    @Value("${generator.attributeValueLength:16}")
+    int attributeValueLength;
+
+    /**
+     * Fail at startup on counts the generator can't work with, rather than part way through a run.
+     */
+    @PostConstruct
+    void validate() {
+        atLeast("generator.teams", teams, 1);
+        atLeast("generator.submissionsPerTeam", submissionsPerTeam, 1);
+        atLeast("generator.projects", projects, 0);
+        atLeast("generator.studies", studies, 0);
+        atLeast("generator.samples", samples, 0);
+        atLeast("generator.assays", assays, 0);
+        atLeast("generator.assayData", assayData, 0);
+        atLeast("generator.attributes", attributes, 0);
+        atLeast("generator.attributeValueLength", attributeValueLength, 0);
+    }
+
+    private static void atLeast(String property, int value, int min) {
+        if (value < min) {
+            throw new IllegalArgumentException(property + " must be at least " + min + ", but is " + value);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getTeams() {
+        return teams;
+    }
+
+    public String getTeamPrefix() {
+        return teamPrefix;
+    }
+
+    public String getAliasPrefix() {
+        return aliasPrefix;
+    }
+
+    public int getSubmissionsPerTeam() {
+        return submissionsPerTeam;
+    }
+
+    public int getProjects() {
+        return projects;
+    }
+
+    public int getStudies() {
+        return studies;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    public int getAssays() {
+        return assays;
+    }
+
+    public int getAssayData() {
+        return assayData;
+    }
+
+    public int getAttributes() {
+        return attributes;
+    }
+
+    public int getAttributeValueLength() {
+        return attributeValueLength;
+    }
+
+    public long getSubmissionCount() {
+        return (long) teams * submissionsPerTeam;
+    }
+
+    public long getItemsPerSubmission() {
+        return (long) projects + studies + samples + assays + assayData;
+    }
+
+    @Override
+    public String toString() {
+        return "GeneratorSpec{" +
+                "seed=" + seed +
+                ", teams=" + teams +
+                ", submissionsPerTeam=" + submissionsPerTeam +
+                ", projects=" + projects +
+                ", studies=" + studies +
+                ", samples=" + samples +
+                ", assays=" + assays +
+                ", assayData=" + assayData +
+                ", attributes=" + attributes +
+                ", attributeValueLength=" + attributeValueLength +
+                '}';
+    }
+}
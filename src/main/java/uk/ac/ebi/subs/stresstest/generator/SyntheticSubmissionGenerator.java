@@ -0,0 +1,131 @@
+package uk.ac.ebi.subs.stresstest.generator;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import uk.ac.ebi.subs.data.Submission;
+import uk.ac.ebi.subs.data.client.Assay;
+import uk.ac.ebi.subs.data.client.AssayData;
+import uk.ac.ebi.subs.data.client.Project;
+import uk.ac.ebi.subs.data.client.Sample;
+import uk.ac.ebi.subs.data.client.Study;
+import uk.ac.ebi.subs.stresstest.StreamedSubmissionHandler;
+
+import java.util.Random;
+
+/**
+ * Builds submissions in memory from a {@link GeneratorSpec}, with no input files.
+ * <p>
+ * Each submission is generated from its own random stream, seeded from the spec seed and the submission index, so any
+ * submission can be regenerated on its own and a run can be reproduced exactly from its seed. Items are built in the
+ * JSON layout of the input files and handed over one at a time, referenced types first: projects, studies, samples,
+ * assays (referencing a study and a sample) and assay data (referencing an assay).
+ */
+public class SyntheticSubmissionGenerator {
+
+    private static final char[] VALUE_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+
+    private final GeneratorSpec spec;
+    private final ObjectMapper mapper;
+
+    public SyntheticSubmissionGenerator(GeneratorSpec spec) {
+        this.spec = spec;
+        this.mapper = new ObjectMapper();
+        this.mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    public long submissionCount() {
+        return spec.getSubmissionCount();
+    }
+
+    /**
+     * Generate the submission with the given index, in [0, {@link #submissionCount()}).
+     */
+    public void generate(long submissionIndex, StreamedSubmissionHandler handler) {
+        Random random = new Random(spec.getSeed() * 0x9E3779B97F4A7C15L + submissionIndex);
+        String teamName = spec.getTeamPrefix() + (submissionIndex / spec.getSubmissionsPerTeam());
+        String aliasPrefix = spec.getAliasPrefix() + "-" + spec.getSeed() + "-" + submissionIndex + "-";
+
+        ObjectNode submission = mapper.createObjectNode();
+        submission.putObject("team").put("name", teamName);
+        handler.start(convert(submission, Submission.class));
+
+        for (int i = 0; i < spec.getProjects(); i++) {
+            ObjectNode project = item(random, teamName, aliasPrefix + "project-" + i);
+            handler.item(convert(project, Project.class));
+        }
+
+        for (int i = 0; i < spec.getStudies(); i++) {
+            ObjectNode study = item(random, teamName, aliasPrefix + "study-" + i);
+            if (spec.getProjects() > 0) {
+                ref(study.putObject("projectRef"), teamName, aliasPrefix + "project-" + (i % spec.getProjects()));
+            }
+            handler.item(convert(study, Study.class));
+        }
+
+        for (int i = 0; i < spec.getSamples(); i++) {
+            ObjectNode sample = item(random, teamName, aliasPrefix + "sample-" + i);
+            sample.put("taxonId", 9606);
+            sample.put("taxon", "Homo sapiens");
+            handler.item(convert(sample, Sample.class));
+        }
+
+        for (int i = 0; i < spec.getAssays(); i++) {
+            ObjectNode assay = item(random, teamName, aliasPrefix + "assay-" + i);
+            if (spec.getStudies() > 0) {
+                ref(assay.putObject("studyRef"), teamName, aliasPrefix + "study-" + (i % spec.getStudies()));
+            }
+            if (spec.getSamples() > 0) {
+                ObjectNode sampleUse = assay.putArray("sampleUses").addObject();
+                ref(sampleUse.putObject("sampleRef"), teamName, aliasPrefix + "sample-" + (i % spec.getSamples()));
+            }
+            handler.item(convert(assay, Assay.class));
+        }
+
+        for (int i = 0; i < spec.getAssayData(); i++) {
+            ObjectNode assayData = item(random, teamName, aliasPrefix + "assayData-" + i);
+            if (spec.getAssays() > 0) {
+                ref(assayData.putArray("assayRefs").addObject(), teamName, aliasPrefix + "assay-" + (i % spec.getAssays()));
+            }
+            handler.item(convert(assayData, AssayData.class));
+        }
+
+        handler.end();
+    }
+
+    private ObjectNode item(Random random, String teamName, String alias) {
+        ObjectNode item = mapper.createObjectNode();
+        item.put("alias", alias);
+        item.putObject("team").put("name", teamName);
+        item.put("title", "Synthetic " + alias);
+        item.put("description", randomValue(random));
+
+        ObjectNode attributes = item.putObject("attributes");
+        for (int i = 0; i < spec.getAttributes(); i++) {
+            attributes.putArray("attribute-" + i).addObject().put("value", randomValue(random));
+        }
+        return item;
+    }
+
+    private static void ref(ObjectNode ref, String teamName, String alias) {
+        ref.put("alias", alias);
+        ref.put("team", teamName);
+    }
+
+    private String randomValue(Random random) {
+        char[] value = new char[spec.getAttributeValueLength()];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = VALUE_CHARS[random.nextInt(VALUE_CHARS.length)];
+        }
+        return new String(value);
+    }
+
+    private <T> T convert(ObjectNode node, Class<T> type) {
+        try {
+            return mapper.treeToValue(node, type);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package uk.ac.ebi.subs.stresstest.http;
+
+import org.apache.http.pool.PoolStats;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Connection pool figures for the HTTP clients: current leased, available and pending counts per pool, and how many
+ * connections were created compared with how many leases reused an open connection.
+ * <p>
+ * The time spent waiting for a lease is recorded as a latency, see {@link uk.ac.ebi.subs.stresstest.metrics.Operations#HTTP_POOL_LEASE}.
+ */
+@Component
+public class ConnectionPoolMetrics {
+
+    private final ConcurrentMap<String, Supplier<PoolStats>> pools = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> maxLeased = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> maxPending = new ConcurrentHashMap<>();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder leased = new LongAdder();
+
+    public void register(String pool, Supplier<PoolStats> stats) {
+        pools.put(pool, stats);
+    }
+
+    public void connectionCreated() {
+        created.increment();
+    }
+
+    public void connectionLeased() {
+        leased.increment();
+    }
+
+    public long getCreated() {
+        return created.sum();
+    }
+
+    public long getReused() {
+        return Math.max(leased.sum() - created.sum(), 0);
+    }
+
+    /**
+     * @return the current figures of each pool, also keeping track of the peak leased and pending counts
+     */
+    public Map<String, PoolStats> sample() {
+        Map<String, PoolStats> stats = new TreeMap<>();
+        pools.forEach((pool, supplier) -> {
+            PoolStats poolStats = supplier.get();
+            stats.put(pool, poolStats);
+            maxLeased.merge(pool, poolStats.getLeased(), Math::max);
+            maxPending.merge(pool, poolStats.getPending(), Math::max);
+        });
+        return stats;
+    }
+
+    /**
+     * @return one line per pool with its current and peak counts
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder();
+        sample().forEach((pool, stats) -> summary.append(String.format(Locale.ROOT,
+                "%n  %-10s %5d leased (peak %d), %5d available, %5d pending (peak %d), max %d",
+                pool, stats.getLeased(), maxLeased.get(pool), stats.getAvailable(),
+                stats.getPending(), maxPending.get(pool), stats.getMax())));
+        summary.append(String.format(Locale.ROOT, "%n  %d connections created, %d leases reused a connection",
+                getCreated(), getReused()));
+        return summary.toString();
+    }
+}
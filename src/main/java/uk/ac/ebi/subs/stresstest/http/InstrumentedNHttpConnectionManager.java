@@ -0,0 +1,103 @@
+package uk.ac.ebi.subs.stresstest.http;
+
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.nio.NHttpClientConnection;
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
+import org.apache.http.nio.reactor.IOEventDispatch;
+import org.apache.http.protocol.HttpContext;
+import uk.ac.ebi.subs.stresstest.metrics.LatencyMetrics;
+import uk.ac.ebi.subs.stresstest.metrics.Operations;
+
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking counterpart of {@link InstrumentedConnectionManager}: records how long each request waits to lease a
+ * connection from the async client's pool. The async pool connects a new connection before completing the lease, so
+ * for new connections the wait includes the connect time.
+ */
+public class InstrumentedNHttpConnectionManager implements NHttpClientConnectionManager {
+
+    private final PoolingNHttpClientConnectionManager delegate;
+    private final LatencyMetrics latencyMetrics;
+    private final ConnectionPoolMetrics poolMetrics;
+
+    public InstrumentedNHttpConnectionManager(PoolingNHttpClientConnectionManager delegate, LatencyMetrics latencyMetrics, ConnectionPoolMetrics poolMetrics) {
+        this.delegate = delegate;
+        this.latencyMetrics = latencyMetrics;
+        this.poolMetrics = poolMetrics;
+    }
+
+    @Override
+    public Future<NHttpClientConnection> requestConnection(HttpRoute route, Object state, long connectTimeout,
+                                                           long leaseTimeout, TimeUnit tUnit,
+                                                           FutureCallback<NHttpClientConnection> callback) {
+        long startNanos = System.nanoTime();
+        return delegate.requestConnection(route, state, connectTimeout, leaseTimeout, tUnit, new FutureCallback<NHttpClientConnection>() {
+            @Override
+            public void completed(NHttpClientConnection connection) {
+                latencyMetrics.recordSince(Operations.HTTP_POOL_LEASE, startNanos);
+                poolMetrics.connectionLeased();
+                if (callback != null) callback.completed(connection);
+            }
+
+            @Override
+            public void failed(Exception e) {
+                if (callback != null) callback.failed(e);
+            }
+
+            @Override
+            public void cancelled() {
+                if (callback != null) callback.cancelled();
+            }
+        });
+    }
+
+    @Override
+    public void releaseConnection(NHttpClientConnection conn, Object newState, long validDuration, TimeUnit tUnit) {
+        delegate.releaseConnection(conn, newState, validDuration, tUnit);
+    }
+
+    @Override
+    public void startRoute(NHttpClientConnection conn, HttpRoute route, HttpContext context) throws IOException {
+        delegate.startRoute(conn, route, context);
+    }
+
+    @Override
+    public void upgrade(NHttpClientConnection conn, HttpRoute route, HttpContext context) throws IOException {
+        delegate.upgrade(conn, route, context);
+    }
+
+    @Override
+    public void routeComplete(NHttpClientConnection conn, HttpRoute route, HttpContext context) {
+        delegate.routeComplete(conn, route, context);
+    }
+
+    @Override
+    public boolean isRouteComplete(NHttpClientConnection conn) {
+        return delegate.isRouteComplete(conn);
+    }
+
+    @Override
+    public void closeIdleConnections(long idleTime, TimeUnit tUnit) {
+        delegate.closeIdleConnections(idleTime, tUnit);
+    }
+
+    @Override
+    public void closeExpiredConnections() {
+        delegate.closeExpiredConnections();
+    }
+
+    @Override
+    public void execute(IOEventDispatch eventDispatch) throws IOException {
+        delegate.execute(eventDispatch);
+    }
+
+    @Override
+    public void shutdown() throws IOException {
+        delegate.shutdown();
+    }
+}
@@ -0,0 +1,55 @@
+package uk.ac.ebi.subs.stresstest.http;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import uk.ac.ebi.subs.stresstest.metrics.LatencyMetrics;
+import uk.ac.ebi.subs.stresstest.metrics.Operations;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+
+/**
+ * Per-call OkHttp listener feeding the same pool figures as {@link InstrumentedConnectionManager}. The lease time is
+ * from the start of the call until a pooled connection is acquired, or until a new connection starts to be opened.
+ */
+public class OkHttpPoolEventListener extends EventListener {
+
+    private final LatencyMetrics latencyMetrics;
+    private final ConnectionPoolMetrics poolMetrics;
+    private long callStartNanos;
+    private boolean leaseRecorded;
+
+    OkHttpPoolEventListener(LatencyMetrics latencyMetrics, ConnectionPoolMetrics poolMetrics) {
+        this.latencyMetrics = latencyMetrics;
+        this.poolMetrics = poolMetrics;
+    }
+
+    public static EventListener.Factory factory(LatencyMetrics latencyMetrics, ConnectionPoolMetrics poolMetrics) {
+        return call -> new OkHttpPoolEventListener(latencyMetrics, poolMetrics);
+    }
+
+    @Override
+    public void callStart(Call call) {
+        callStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        poolMetrics.connectionCreated();
+        recordLease();
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        poolMetrics.connectionLeased();
+        recordLease();
+    }
+
+    private void recordLease() {
+        if (!leaseRecorded) {
+            leaseRecorded = true;
+            latencyMetrics.recordSince(Operations.HTTP_POOL_LEASE, callStartNanos);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package uk.ac.ebi.subs.stresstest.http;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import org.apache.http.pool.PoolStats;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Applies the http.maxConnTotal, http.maxConnPerRoute and http.leaseTimeoutMs limits to the HTTP/2 client. HTTP/2
+ * multiplexes requests over a few connections, so the limits are on concurrent requests rather than connections: a
+ * request waits for a slot for its host and a slot overall, and fails if it can't get them within the lease timeout.
+ */
+public class OkHttpRequestLimiter implements Interceptor {
+
+    private final int maxTotal;
+    private final int maxPerRoute;
+    private final long leaseTimeoutMs;
+    private final Semaphore total;
+    private final ConcurrentMap<String, Semaphore> perRoute = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * @param leaseTimeoutMs how long a request may wait for a slot, 0 for no limit
+     */
+    public OkHttpRequestLimiter(int maxTotal, int maxPerRoute, long leaseTimeoutMs) {
+        this.maxTotal = maxTotal;
+        this.maxPerRoute = maxPerRoute;
+        this.leaseTimeoutMs = leaseTimeoutMs;
+        this.total = new Semaphore(maxTotal, true);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        HttpUrl url = chain.request().url();
+        Semaphore route = perRoute.computeIfAbsent(url.host() + ":" + url.port(), r -> new Semaphore(maxPerRoute, true));
+
+        pending.incrementAndGet();
+        try {
+            acquire(route, url);
+            try {
+                acquire(total, url);
+            } catch (IOException e) {
+                route.release();
+                throw e;
+            }
+        } finally {
+            pending.decrementAndGet();
+        }
+
+        try {
+            return chain.proceed(chain.request());
+        } finally {
+            total.release();
+            route.release();
+        }
+    }
+
+    /**
+     * @return requests in flight as leased and waiting requests as pending, against the overall limit
+     */
+    public PoolStats stats() {
+        int leased = maxTotal - total.availablePermits();
+        return new PoolStats(leased, pending.get(), maxTotal - leased, maxTotal);
+    }
+
+    private void acquire(Semaphore slots, HttpUrl url) throws IOException {
+        try {
+            if (leaseTimeoutMs <= 0) {
+                slots.acquire();
+            } else if (!slots.tryAcquire(leaseTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Timeout waiting " + leaseTimeoutMs + "ms for a request slot for " + url.host());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for a request slot for " + url.host());
+        }
+    }
+}
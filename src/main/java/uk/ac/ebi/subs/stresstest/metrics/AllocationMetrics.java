@@ -0,0 +1,110 @@
+package uk.ac.ebi.subs.stresstest.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.subs.stresstest.execution.ExecutionEngine;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Heap allocated by the tester's threads, read from the HotSpot thread MXBean, so that the allocation cost of each
+ * request can be compared between client configurations.
+ * <p>
+ * The figure is the sum over live threads, plus what each thread had allocated when it was last seen before it
+ * exited; a thread that starts and exits between two reads is missed, but the request threads are pooled, and the
+ * live metrics read the figure every interval. Virtual threads are not visible to the MXBean, so allocation is not
+ * measured when the execution engine uses them. The embedded mock API's handler threads are left out, so that a run
+ * against the mock measures the client alone, though the HTTP server's single dispatcher thread, shared with the
+ * worker and Prometheus endpoints, is still counted.
+ */
+@Component
+public class AllocationMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(AllocationMetrics.class);
+
+    private static final String EXCLUDED_THREAD_PREFIX = "mock-api-";
+
+    @Autowired
+    ExecutionEngine executionEngine;
+
+    private final com.sun.management.ThreadMXBean threadMXBean;
+    private Map<Long, Long> lastSeenBytes = new HashMap<>();
+    private long exitedBytes;
+    private long runStartBytes;
+
+    public AllocationMetrics() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            threadMXBean = (com.sun.management.ThreadMXBean) bean;
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            threadMXBean = null;
+            logger.info("Per-thread allocation is not supported by this JVM, allocation per request will not be reported");
+        }
+    }
+
+    /**
+     * @return false if the JVM does not report per-thread allocation, or the requests run on virtual threads
+     */
+    public boolean isSupported() {
+        return threadMXBean != null && !executionEngine.usesVirtualThreads();
+    }
+
+    /**
+     * @return bytes allocated so far by threads other than the mock API's, or 0 if not supported
+     */
+    public synchronized long allocatedBytes() {
+        if (!isSupported()) return 0;
+
+        long[] threadIds = threadMXBean.getAllThreadIds();
+        ThreadInfo[] threads = threadMXBean.getThreadInfo(threadIds);
+        long[] allocated = threadMXBean.getThreadAllocatedBytes(threadIds);
+        Map<Long, Long> seenBytes = new HashMap<>(threadIds.length * 2);
+        long total = 0;
+        for (int i = 0; i < threadIds.length; i++) {
+            if (allocated[i] > 0 && threads[i] != null && !threads[i].getThreadName().startsWith(EXCLUDED_THREAD_PREFIX)) {
+                seenBytes.put(threadIds[i], allocated[i]);
+                total += allocated[i];
+            }
+        }
+        lastSeenBytes.forEach((threadId, bytes) -> {
+            if (!seenBytes.containsKey(threadId)) {
+                exitedBytes += bytes;
+            }
+        });
+        lastSeenBytes = seenBytes;
+        return exitedBytes + total;
+    }
+
+    /**
+     * Start counting allocation for the end-of-run report.
+     */
+    public void startRun() {
+        runStartBytes = allocatedBytes();
+    }
+
+    /**
+     * Log what was allocated since {@link #startRun()}, in total and per request.
+     */
+    public void report(long requests) {
+        if (threadMXBean == null) return;
+        if (!isSupported()) {
+            logger.info("Allocation is not measured with virtual threads");
+            return;
+        }
+
+        long bytes = Math.max(allocatedBytes() - runStartBytes, 0);
+        logger.info("Allocated {}MB, {}KB per request over {} requests",
+                bytes / (1024 * 1024),
+                requests > 0 ? String.format(Locale.ROOT, "%.1f", bytes / 1024d / requests) : "-",
+                requests);
+    }
+}
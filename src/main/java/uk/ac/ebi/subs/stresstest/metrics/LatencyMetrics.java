@@ -0,0 +1,246 @@
+package uk.ac.ebi.subs.stresstest.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Latency histograms, one per operation, recorded at nanosecond resolution.
+ * <p>
+ * Recording goes through an HdrHistogram {@link Recorder} per operation, so it is wait-free for the request threads.
+ * Interval histograms are taken from the recorders when sampled and accumulated into per-operation totals, which are
+ * reported at the end of the run as a percentile table and exported as an HdrHistogram log (.hlog) and a CSV file.
+ */
+@Component
+public class LatencyMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatencyMetrics.class);
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    @Value("${metrics.dir:metrics}")
+    String metricsDir;
+
+    private final ConcurrentMap<String, Recorder> recorders = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> totals = new TreeMap<>();
+    private long startEpochMillis = System.currentTimeMillis();
+    private volatile long measuringSinceNanos = System.nanoTime();
+
+    private PrintStream logStream;
+    private HistogramLogWriter logWriter;
+
+    public void record(String operation, long latencyNanos) {
+        record(operation, latencyNanos, 1);
+    }
+
+    /**
+     * Record the same latency count times, e.g. the amortized latency of each item in a batch.
+     */
+    public void record(String operation, long latencyNanos, long count) {
+        recorders.computeIfAbsent(operation, op -> new Recorder(SIGNIFICANT_DIGITS))
+                .recordValueWithCount(Math.max(latencyNanos, 0), count);
+    }
+
+    /**
+     * Record the time from startNanos (in {@link System#nanoTime()} terms) to now.
+     *
+     * @return the recorded latency
+     */
+    public long recordSince(String operation, long startNanos) {
+        long latencyNanos = System.nanoTime() - startNanos;
+        record(operation, latencyNanos);
+        return latencyNanos;
+    }
+
+    /**
+     * Take the histograms recorded since the previous sample, add them to the totals and append them to the .hlog.
+     *
+     * @return the interval histograms, by operation
+     */
+    public synchronized Map<String, Histogram> sampleInterval() {
+        Map<String, Histogram> intervals = new TreeMap<>();
+
+        recorders.forEach((operation, recorder) -> {
+            Histogram interval = recorder.getIntervalHistogram();
+            interval.setTag(operation);
+            intervals.put(operation, interval);
+
+            totals.computeIfAbsent(operation, op -> new Histogram(SIGNIFICANT_DIGITS)).add(interval);
+
+            if (interval.getTotalCount() > 0) {
+                logWriter().outputIntervalHistogram(interval);
+            }
+        });
+
+        return intervals;
+    }
+
+    /**
+     * @return copies of the accumulated histograms, by operation, up to the last sample
+     */
+    public synchronized Map<String, Histogram> totals() {
+        Map<String, Histogram> copies = new TreeMap<>();
+        totals.forEach((operation, histogram) -> copies.put(operation, histogram.copy()));
+        return copies;
+    }
+
+    /**
+     * Log the end-of-run percentile table and write the .hlog and CSV exports.
+     */
+    public synchronized void report() {
+        sampleInterval();
+
+        report(totals, "latency");
+        if (logWriter != null) {
+            logStream.close();
+            logStream = null;
+            logWriter = null;
+            logger.info("Latency histogram log written to {}", Paths.get(metricsDir, "latency.hlog").toAbsolutePath());
+        }
+    }
+
+    /**
+     * Log a percentile table for histograms recorded elsewhere, e.g. merged from several workers, and write them to
+     * {@code <name>.csv} and {@code <name>.hlog} under the metrics directory.
+     */
+    public void reportMerged(Map<String, Histogram> histograms, String name) {
+        report(histograms, name);
+        writeHistogramLog(histograms, Paths.get(metricsDir, name + ".hlog"));
+    }
+
+    /**
+     * Write histograms to an .hlog file, one entry per operation, tagged with the operation name.
+     */
+    public static void writeHistogramLog(Map<String, Histogram> histograms, Path hlogPath) {
+        try (PrintStream stream = new PrintStream(createParent(hlogPath).toFile(), "UTF-8")) {
+            HistogramLogWriter writer = new HistogramLogWriter(stream);
+            writer.outputLogFormatVersion();
+            writer.outputLegend();
+            histograms.forEach((operation, histogram) -> {
+                Histogram tagged = histogram.copy();
+                tagged.setTag(operation);
+                writer.outputIntervalHistogram(tagged);
+            });
+        } catch (FileNotFoundException | UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+        logger.info("Latency histogram log written to {}", hlogPath.toAbsolutePath());
+    }
+
+    private void report(Map<String, Histogram> histograms, String name) {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(Locale.ROOT, "%n%-40s %10s %10s %10s %10s %10s %10s%n",
+                "operation (ms)", "count", "p50", "p90", "p99", "p99.9", "max"));
+        histograms.forEach((operation, histogram) -> table.append(String.format(Locale.ROOT,
+                "%-40s %10d %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+                operation,
+                histogram.getTotalCount(),
+                percentileMillis(histogram, 50),
+                percentileMillis(histogram, 90),
+                percentileMillis(histogram, 99),
+                percentileMillis(histogram, 99.9),
+                histogram.getMaxValue() / NANOS_PER_MILLI
+        )));
+        logger.info("Latency percentiles:{}", table);
+
+        writeCsv(histograms, Paths.get(metricsDir, name + ".csv"));
+    }
+
+    private void writeCsv(Map<String, Histogram> histograms, Path csvPath) {
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(createParent(csvPath), StandardCharsets.UTF_8))) {
+            csv.println("operation,count,mean_ms,p50_ms,p90_ms,p99_ms,p99.9_ms,max_ms");
+            histograms.forEach((operation, histogram) -> csv.println(String.format(Locale.ROOT,
+                    "%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f",
+                    operation,
+                    histogram.getTotalCount(),
+                    histogram.getMean() / NANOS_PER_MILLI,
+                    percentileMillis(histogram, 50),
+                    percentileMillis(histogram, 90),
+                    percentileMillis(histogram, 99),
+                    percentileMillis(histogram, 99.9),
+                    histogram.getMaxValue() / NANOS_PER_MILLI
+            )));
+            logger.info("Latency summary written to {}", csvPath.toAbsolutePath());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Discard everything recorded so far, e.g. before a worker starts a new run. The .hlog is started again, so that it
+     * covers the same intervals as the totals.
+     */
+    public synchronized void reset() {
+        recorders.values().forEach(Recorder::reset);
+        totals.clear();
+        measuringSinceNanos = System.nanoTime();
+        startEpochMillis = System.currentTimeMillis();
+        if (logStream != null) {
+            logStream.close();
+            logStream = null;
+            logWriter = null;
+        }
+    }
+
+    /**
+     * @return when the totals started accumulating, i.e. the last {@link #reset()}, in {@link System#nanoTime()} terms
+     */
+    public long getMeasuringSinceNanos() {
+        return measuringSinceNanos;
+    }
+
+    private HistogramLogWriter logWriter() {
+        if (logWriter == null) {
+            Path hlogPath = Paths.get(metricsDir, "latency.hlog");
+            try {
+                logStream = new PrintStream(createParent(hlogPath).toFile(), "UTF-8");
+            } catch (FileNotFoundException | UnsupportedEncodingException e) {
+                throw new RuntimeException(e);
+            }
+            logWriter = new HistogramLogWriter(logStream);
+            logWriter.outputComment("subs-stress-tester latency, values in nanoseconds, tagged by operation");
+            logWriter.outputLogFormatVersion();
+            logWriter.setBaseTime(startEpochMillis);
+            logWriter.outputBaseTime(startEpochMillis);
+            logWriter.outputStartTime(startEpochMillis);
+            logWriter.outputLegend();
+        }
+        return logWriter;
+    }
+
+    private static Path createParent(Path path) {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            return path;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static double percentileMillis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,287 @@
+package uk.ac.ebi.subs.stresstest.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.subs.stresstest.StressTestService;
+import uk.ac.ebi.subs.stresstest.execution.ExecutionEngine;
+import uk.ac.ebi.subs.stresstest.http.ConnectionPoolMetrics;
+import uk.ac.ebi.subs.stresstest.results.RunResults;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the latency recorders every {@code metrics.intervalSeconds} while a run is going and logs a snapshot of
+ * the interval: request rate and percentiles per operation, work in flight and failures.
+ * <p>
+ * Connection pool figures and heap allocated per request are logged with each snapshot, and each snapshot is added
+ * to the run's timeline in its {@link RunResults}. The latest snapshot is also exposed over JMX, and to the Prometheus endpoint if that is enabled.
+ */
+@Component
+@ManagedResource(objectName = "uk.ac.ebi.subs.stresstest:name=LiveMetrics", description = "Live stress test metrics")
+public class LiveMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveMetrics.class);
+
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    @Value("${metrics.intervalSeconds:5}")
+    long intervalSeconds;
+
+    @Autowired
+    LatencyMetrics latencyMetrics;
+    @Autowired
+    ExecutionEngine executionEngine;
+    @Autowired
+    StressTestService stressTestService;
+    @Autowired
+    ConnectionPoolMetrics poolMetrics;
+    @Autowired
+    AllocationMetrics allocationMetrics;
+    @Autowired
+    RunResults runResults;
+
+    private ScheduledExecutorService sampler;
+    private long lastSampleNanos = System.nanoTime();
+    private long lastFailures;
+    private long lastAllocatedBytes;
+    private volatile Snapshot lastSnapshot = new Snapshot(0, Collections.emptyMap(), 0, 0);
+
+    @PostConstruct
+    void start() {
+        if (intervalSeconds <= 0) return;
+        lastAllocatedBytes = allocationMetrics.allocatedBytes();
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("live-metrics-");
+        threadFactory.setDaemon(true);
+        sampler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        sampler.scheduleAtFixedRate(this::sample, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+        }
+    }
+
+    /**
+     * Take and log a snapshot of the interval since the previous one.
+     */
+    synchronized void sample() {
+        try {
+            long nowNanos = System.nanoTime();
+            double seconds = (nowNanos - lastSampleNanos) / 1e9;
+            lastSampleNanos = nowNanos;
+
+            long failures = getFailedSubmissions() + getFailedItems();
+            long allocatedBytes = allocationMetrics.allocatedBytes();
+            Snapshot snapshot = new Snapshot(seconds, latencyMetrics.sampleInterval(), failures - lastFailures,
+                    allocationMetrics.isSupported() ? Math.max(allocatedBytes - lastAllocatedBytes, 0) : -1);
+            lastFailures = failures;
+            lastAllocatedBytes = allocatedBytes;
+            lastSnapshot = snapshot;
+
+            if (snapshot.getRequests() > 0 || getSubmissionsInFlight() > 0 || getItemsInFlight() > 0) {
+                log(snapshot);
+                runResults.intervalSampled(snapshot, getSubmissionsInFlight(), getItemsInFlight());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not sample live metrics", e);
+        }
+    }
+
+    private void log(Snapshot snapshot) {
+        StringBuilder lines = new StringBuilder();
+        snapshot.getIntervals().forEach((operation, histogram) -> {
+            if (histogram.getTotalCount() == 0) return;
+            lines.append(String.format(Locale.ROOT, "%n  %-40s %8.1f/s p50 %9.3fms p99 %9.3fms max %9.3fms",
+                    operation,
+                    histogram.getTotalCount() / snapshot.getSeconds(),
+                    histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                    histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                    histogram.getMaxValue() / NANOS_PER_MILLI));
+        });
+        logger.info("{} req/s, {} submissions and {} items in flight, {} failures ({}%), {} submissions done, {}{}{}",
+                String.format(Locale.ROOT, "%.1f", snapshot.getRequestsPerSecond()),
+                getSubmissionsInFlight(),
+                getItemsInFlight(),
+                snapshot.getFailures(),
+                String.format(Locale.ROOT, "%.2f", snapshot.getErrorRate() * 100),
+                getSubmissions(),
+                allocation(snapshot),
+                lines,
+                poolMetrics.summary());
+    }
+
+    private static String allocation(Snapshot snapshot) {
+        if (!snapshot.isAllocationMeasured()) {
+            return "allocation not measured";
+        }
+        return String.format(Locale.ROOT, "%.1fMB/s allocated (%.1fKB per request)",
+                snapshot.getAllocatedBytesPerSecond() / (1024 * 1024),
+                snapshot.getAllocatedBytesPerRequest() / 1024);
+    }
+
+    public Snapshot getLastSnapshot() {
+        return lastSnapshot;
+    }
+
+    @ManagedAttribute(description = "Requests per second over the last interval")
+    public double getRequestsPerSecond() {
+        return lastSnapshot.getRequestsPerSecond();
+    }
+
+    @ManagedAttribute(description = "Failures per request over the last interval")
+    public double getErrorRate() {
+        return lastSnapshot.getErrorRate();
+    }
+
+    @ManagedAttribute(description = "Heap allocated per second over the last interval, in bytes")
+    public double getAllocatedBytesPerSecond() {
+        return lastSnapshot.getAllocatedBytesPerSecond();
+    }
+
+    @ManagedAttribute(description = "Heap allocated per request over the last interval, in bytes")
+    public double getAllocatedBytesPerRequest() {
+        return lastSnapshot.getAllocatedBytesPerRequest();
+    }
+
+    @ManagedAttribute(description = "Rate and latency percentiles per operation over the last interval")
+    public String[] getIntervalSummary() {
+        return lastSnapshot.getIntervals().entrySet().stream()
+                .map(entry -> String.format(Locale.ROOT, "%s: %.1f/s p50 %.3fms p99 %.3fms",
+                        entry.getKey(),
+                        entry.getValue().getTotalCount() / lastSnapshot.getSeconds(),
+                        entry.getValue().getValueAtPercentile(50) / NANOS_PER_MILLI,
+                        entry.getValue().getValueAtPercentile(99) / NANOS_PER_MILLI))
+                .toArray(String[]::new);
+    }
+
+    @ManagedAttribute(description = "Submissions currently in flight")
+    public int getSubmissionsInFlight() {
+        return executionEngine.getSubmissionsInFlight();
+    }
+
+    @ManagedAttribute(description = "Item requests currently in flight")
+    public int getItemsInFlight() {
+        return executionEngine.getItemsInFlight();
+    }
+
+    @ManagedAttribute(description = "Submissions completed")
+    public long getSubmissions() {
+        return stressTestService.getSubmissionCount();
+    }
+
+    @ManagedAttribute(description = "Submissions failed")
+    public long getFailedSubmissions() {
+        return executionEngine.getFailedSubmissions();
+    }
+
+    @ManagedAttribute(description = "Item requests failed")
+    public long getFailedItems() {
+        return executionEngine.getFailedItems();
+    }
+
+    @ManagedAttribute(description = "Leased, available and pending connections per HTTP connection pool")
+    public String[] getConnectionPools() {
+        return poolMetrics.sample().entrySet().stream()
+                .map(entry -> String.format(Locale.ROOT, "%s: %d leased, %d available, %d pending, max %d",
+                        entry.getKey(),
+                        entry.getValue().getLeased(),
+                        entry.getValue().getAvailable(),
+                        entry.getValue().getPending(),
+                        entry.getValue().getMax()))
+                .toArray(String[]::new);
+    }
+
+    @ManagedAttribute(description = "HTTP connections opened")
+    public long getConnectionsCreated() {
+        return poolMetrics.getCreated();
+    }
+
+    @ManagedAttribute(description = "HTTP connection leases that reused an open connection")
+    public long getConnectionsReused() {
+        return poolMetrics.getReused();
+    }
+
+    /**
+     * Interval histograms, failures and allocation between two samples.
+     */
+    public static final class Snapshot {
+        private final double seconds;
+        private final Map<String, Histogram> intervals;
+        private final long failures;
+        private final long requests;
+        private final long allocatedBytes;
+
+        Snapshot(double seconds, Map<String, Histogram> intervals, long failures, long allocatedBytes) {
+            this.seconds = seconds;
+            this.intervals = intervals;
+            this.failures = failures;
+            this.allocatedBytes = allocatedBytes;
+            this.requests = intervals.entrySet().stream()
+                    .filter(entry -> Operations.isRequest(entry.getKey()))
+                    .mapToLong(entry -> entry.getValue().getTotalCount())
+                    .sum();
+        }
+
+        public double getSeconds() {
+            return seconds;
+        }
+
+        public Map<String, Histogram> getIntervals() {
+            return intervals;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public double getRequestsPerSecond() {
+            return seconds > 0 ? requests / seconds : 0;
+        }
+
+        public double getErrorRate() {
+            return requests + failures > 0 ? (double) failures / (requests + failures) : 0;
+        }
+
+        /**
+         * @return heap allocated over the interval, or -1 if allocation is not measured
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public boolean isAllocationMeasured() {
+            return allocatedBytes >= 0;
+        }
+
+        public double getAllocatedBytesPerSecond() {
+            if (!isAllocationMeasured()) return Double.NaN;
+            return seconds > 0 ? allocatedBytes / seconds : 0;
+        }
+
+        public double getAllocatedBytesPerRequest() {
+            if (!isAllocationMeasured()) return Double.NaN;
+            return requests > 0 ? (double) allocatedBytes / requests : 0;
+        }
+    }
+}
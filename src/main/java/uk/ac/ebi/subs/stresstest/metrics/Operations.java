@@ -0,0 +1,90 @@
+package uk.ac.ebi.subs.stresstest.metrics;
+
+/**
+ * Names of the operations we keep latency histograms for.
+ */
+public final class Operations {
+
+    public static final String SUBMISSION_CREATE = "submission.create";
+    public static final String LINK_DISCOVERY = "link.discovery";
+    public static final String STATUS_PATCH = "status.patch";
+    /** Fetching or refreshing an AAP token. */
+    public static final String AUTH_TOKEN = "auth.token";
+    /** Time the embedded mock API takes to answer a request, as seen by the server. */
+    public static final String MOCK_HANDLE = "mock.handle";
+    /** Waiting to lease a connection from the HTTP client's pool, part of the latency of every request. */
+    public static final String HTTP_POOL_LEASE = "http.pool.lease";
+
+    /** From the last item being posted until the submission can be submitted. */
+    public static final String SUBMISSION_TIME_TO_SUBMITTABLE = "submission.time-to-submittable";
+    /** From the (intended) start of the submission until its status has been set to Submitted. */
+    public static final String SUBMISSION_TIME_TO_SUBMITTED = "submission.time-to-submitted";
+    /** From the status being set to Submitted until the submission reaches a terminal status. */
+    public static final String SUBMISSION_TIME_TO_PROCESSED = "submission.time-to-processed";
+    /** From the submission status being set to Submitted until the item reaches a terminal processing status. */
+    public static final String ITEM_TIME_TO_PROCESSED = "item.time-to-processed";
+
+    private static final String SUBMISSION_WAVE_PREFIX = "submission.wave-";
+    private static final String ITEM_CREATE_PREFIX = "item.create.";
+    private static final String ITEM_BATCH_PREFIX = "item.batch.";
+    private static final String ITEM_BATCH_PER_ITEM_PREFIX = "item.batch-per-item.";
+    private static final String REPLAY_PREFIX = "replay.";
+    private static final String SCENARIO_PREFIX = "scenario.";
+
+    private Operations() {
+    }
+
+    /**
+     * @return false for the derived time-to-... and wave measurements, which span several requests, for pool leases
+     * and mock server time, which are part of a request, and for amortized per-item batch latencies, which are recorded once per item
+     */
+    public static boolean isRequest(String operation) {
+        return !operation.contains(".time-to-")
+                && !operation.equals(HTTP_POOL_LEASE)
+                && !operation.equals(MOCK_HANDLE)
+                && !operation.startsWith(SUBMISSION_WAVE_PREFIX)
+                && !operation.startsWith(ITEM_BATCH_PER_ITEM_PREFIX);
+    }
+
+    /**
+     * From the first item of a dependency wave being dispatched until all items of the wave have been posted.
+     */
+    public static String submissionWave(int wave) {
+        return SUBMISSION_WAVE_PREFIX + wave;
+    }
+
+    /**
+     * @param itemType the API collection name of the item, e.g. samples or sequencingRuns
+     */
+    public static String itemCreate(String itemType) {
+        return ITEM_CREATE_PREFIX + itemType;
+    }
+
+    /**
+     * Latency of a whole batch POST of items of one type.
+     */
+    public static String itemBatch(String itemType) {
+        return ITEM_BATCH_PREFIX + itemType;
+    }
+
+    /**
+     * Batch latency divided by the number of items in the batch, recorded once per item.
+     */
+    public static String itemBatchPerItem(String itemType) {
+        return ITEM_BATCH_PER_ITEM_PREFIX + itemType;
+    }
+
+    /**
+     * @param uriTemplate relative request URI with ids replaced, e.g. /api/submissions/{id}/contents
+     */
+    public static String replay(String method, String uriTemplate) {
+        return REPLAY_PREFIX + method + " " + uriTemplate;
+    }
+
+    /**
+     * @param operation a scenario operation acting on an existing resource, e.g. getSubmission or deleteItem
+     */
+    public static String scenario(String operation) {
+        return SCENARIO_PREFIX + operation;
+    }
+}
@@ -0,0 +1,141 @@
+package uk.ac.ebi.subs.stresstest.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.HdrHistogram.Histogram;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.subs.stresstest.http.ConnectionPoolMetrics;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Serves the live metrics in the Prometheus text format on {@code metrics.prometheus.port}, if set. This runs on the
+ * JDK HTTP server so it works without a web environment.
+ */
+@Component
+public class PrometheusEndpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrometheusEndpoint.class);
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    @Value("${metrics.prometheus.port:0}")
+    int port;
+
+    @Autowired
+    LiveMetrics liveMetrics;
+    @Autowired
+    LatencyMetrics latencyMetrics;
+    @Autowired
+    ConnectionPoolMetrics poolMetrics;
+
+    private HttpServer server;
+
+    @PostConstruct
+    void start() throws IOException {
+        if (port <= 0) return;
+
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        logger.info("Prometheus metrics on http://localhost:{}/metrics", port);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    String scrape() {
+        StringBuilder out = new StringBuilder();
+
+        Map<String, Histogram> totals = latencyMetrics.totals();
+        type(out, "stresstest_requests_total", "counter");
+        totals.forEach((operation, histogram) ->
+                sample(out, "stresstest_requests_total", operation, null, Long.toString(histogram.getTotalCount())));
+
+        type(out, "stresstest_latency_seconds", "summary");
+        liveMetrics.getLastSnapshot().getIntervals().forEach((operation, histogram) -> {
+            for (double quantile : QUANTILES) {
+                sample(out, "stresstest_latency_seconds", operation, quantile,
+                        format(histogram.getValueAtPercentile(quantile * 100) / 1e9));
+            }
+        });
+
+        gauge(out, "stresstest_requests_per_second", liveMetrics.getRequestsPerSecond());
+        gauge(out, "stresstest_error_rate", liveMetrics.getErrorRate());
+        gauge(out, "stresstest_allocated_bytes_per_second", liveMetrics.getAllocatedBytesPerSecond());
+        gauge(out, "stresstest_allocated_bytes_per_request", liveMetrics.getAllocatedBytesPerRequest());
+        gauge(out, "stresstest_submissions_in_flight", liveMetrics.getSubmissionsInFlight());
+        gauge(out, "stresstest_items_in_flight", liveMetrics.getItemsInFlight());
+        counter(out, "stresstest_submissions_total", liveMetrics.getSubmissions());
+        counter(out, "stresstest_failed_submissions_total", liveMetrics.getFailedSubmissions());
+        counter(out, "stresstest_failed_items_total", liveMetrics.getFailedItems());
+
+        Map<String, PoolStats> pools = poolMetrics.sample();
+        poolGauge(out, "stresstest_http_pool_leased", pools, PoolStats::getLeased);
+        poolGauge(out, "stresstest_http_pool_available", pools, PoolStats::getAvailable);
+        poolGauge(out, "stresstest_http_pool_pending", pools, PoolStats::getPending);
+        counter(out, "stresstest_http_connections_created_total", poolMetrics.getCreated());
+        counter(out, "stresstest_http_connections_reused_total", poolMetrics.getReused());
+
+        return out.toString();
+    }
+
+    private static void gauge(StringBuilder out, String name, double value) {
+        type(out, name, "gauge");
+        out.append(name).append(' ').append(format(value)).append('\n');
+    }
+
+    private static void counter(StringBuilder out, String name, long value) {
+        type(out, name, "counter");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void poolGauge(StringBuilder out, String name, Map<String, PoolStats> pools, ToIntFunction<PoolStats> value) {
+        type(out, name, "gauge");
+        pools.forEach((pool, stats) -> out.append(name).append("{pool=\"").append(escape(pool)).append("\"} ")
+                .append(value.applyAsInt(stats)).append('\n'));
+    }
+
+    private static void type(StringBuilder out, String name, String type) {
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String operation, Double quantile, String value) {
+        out.append(name).append("{operation=\"").append(escape(operation)).append('"');
+        if (quantile != null) {
+            out.append(",quantile=\"").append(quantile).append('"');
+        }
+        out.append("} ").append(value).append('\n');
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.9g", value);
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,443 @@
+package uk.ac.ebi.subs.stresstest.mock;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.subs.stresstest.ItemTypeRouter;
+import uk.ac.ebi.subs.stresstest.metrics.LatencyMetrics;
+import uk.ac.ebi.subs.stresstest.metrics.Operations;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal stand-in for the Submissions API and AAP, for benchmarking the tester itself without a server.
+ * <p>
+ * Started on {@code mock.port} (by default the API {@code port}) when {@code mock.enabled} is set, it serves what a run needs: the team resource with
+ * its {@code submissions:create} link, submission creation, the submission contents with a create link for every
+ * type in the {@link ItemTypeRouter}, item (and batch) creation, the submission status with {@code availableStatuses}
+ * once the submission has been idle for {@code mock.validationDelayMs}, the status PATCH, the processing statuses of
+ * the items, which complete {@code mock.processingDelayMs} after submission, and an {@code /auth} endpoint issuing
+ * unsigned tokens. Submissions can be deleted, and created items read, replaced, patched and deleted, though items
+ * are not stored. Only the latest {@code mock.maxSubmissions} submissions are kept, so a long run does not fill the
+ * heap; requests for older ones get a 404.
+ * <p>
+ * Every response except the token is delayed by {@code mock.latencyMs} plus up to {@code mock.latencyJitterMs}, without
+ * holding a thread, and creation requests fail with a 500 at {@code mock.errorRate}. The time the server takes to
+ * answer each request is recorded as {@link Operations#MOCK_HANDLE}, so it can be set against the latency the client
+ * sees to get the tester's own overhead.
+ */
+@Component
+public class MockApiServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MockApiServer.class);
+
+    private static final String HAL_JSON = "application/hal+json";
+
+    @Value("${mock.enabled:false}")
+    boolean enabled;
+    @Value("${mock.standalone:false}")
+    boolean standalone;
+    @Value("${mock.port:${port:8080}}")
+    int port;
+    @Value("${mock.threads:32}")
+    int threads;
+    @Value("${mock.latencyMs:0}")
+    long latencyMs;
+    @Value("${mock.latencyJitterMs:0}")
+    long latencyJitterMs;
+    @Value("${mock.errorRate:0}")
+    double errorRate;
+    @Value("${mock.validationDelayMs:0}")
+    long validationDelayMs;
+    @Value("${mock.processingDelayMs:0}")
+    long processingDelayMs;
+    @Value("${mock.maxSubmissions:100000}")
+    int maxSubmissions;
+    @Value("${mock.tokenTtlSeconds:3600}")
+    long tokenTtlSeconds;
+    @Value("${basePath:api}")
+    String basePath;
+
+    @Autowired
+    @Lazy
+    ItemTypeRouter itemTypeRouter;
+    @Autowired
+    LatencyMetrics latencyMetrics;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private Map<String, MockSubmission> submissions;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private Pattern team;
+    private Pattern submissionCreate;
+    private Pattern submission;
+    private Pattern contents;
+    private Pattern itemCreate;
+    private Pattern submissionStatus;
+    private Pattern processingStatuses;
+    private Pattern item;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private ScheduledExecutorService delayer;
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) return;
+
+        submissions = Collections.synchronizedMap(new LinkedHashMap<String, MockSubmission>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MockSubmission> eldest) {
+                return size() > maxSubmissions;
+            }
+        });
+
+        String base = "/" + basePath;
+        team = Pattern.compile(base + "/teams/([^/]+)/?");
+        submissionCreate = Pattern.compile(base + "/teams/([^/]+)/submissions");
+        submission = Pattern.compile(base + "/submissions/([^/]+)");
+        contents = Pattern.compile(base + "/submissions/([^/]+)/contents/?");
+        itemCreate = Pattern.compile(base + "/submissions/([^/]+)/contents/([^/]+)(/.*)?");
+        submissionStatus = Pattern.compile(base + "/submissionStatuses/([^/]+)");
+        processingStatuses = Pattern.compile(base + "/submissions/([^/]+)/processingStatuses");
+        item = Pattern.compile(base + "/([^/]+)/([^/]+)");
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("mock-api-");
+        threadFactory.setDaemon(true);
+        executor = Executors.newFixedThreadPool(threads, threadFactory);
+        CustomizableThreadFactory delayThreadFactory = new CustomizableThreadFactory("mock-api-delay-");
+        delayThreadFactory.setDaemon(true);
+        delayer = Executors.newSingleThreadScheduledExecutor(delayThreadFactory);
+
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        logger.info("Mock API listening on http://localhost:{}{}, tokens on http://localhost:{}/auth", port, base, port);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            delayer.shutdownNow();
+        }
+        stopped.countDown();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return true if the application should only serve the mock API, e.g. on another machine or in another process
+     */
+    public boolean isStandalone() {
+        return enabled && standalone;
+    }
+
+    /**
+     * Serve requests until the application is stopped, for running the mock on its own.
+     */
+    public void serve() {
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long startNanos = System.nanoTime();
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        Matcher matcher;
+
+        try {
+            if (path.equals("/auth")) {
+                respondNow(exchange, startNanos, 200, "text/plain", token());
+            } else if ("POST".equals(method) && (matcher = submissionCreate.matcher(path)).matches()) {
+                drain(exchange);
+                if (fail()) {
+                    respond(exchange, startNanos, 500, null, null);
+                    return;
+                }
+                String id = UUID.randomUUID().toString();
+                submissions.put(id, new MockSubmission());
+                exchange.getResponseHeaders().set("Location", uri(exchange, "/submissions/" + id));
+                respond(exchange, startNanos, 201, HAL_JSON, self(exchange, "/submissions/" + id).toString());
+            } else if ("GET".equals(method) && (matcher = team.matcher(path)).matches()) {
+                ObjectNode body = self(exchange, "/teams/" + matcher.group(1));
+                link(body, "submissions:create", uri(exchange, "/teams/" + matcher.group(1) + "/submissions"));
+                respond(exchange, startNanos, 200, HAL_JSON, body.toString());
+            } else if ("GET".equals(method) && (matcher = contents.matcher(path)).matches()) {
+                String id = matcher.group(1);
+                ObjectNode body = self(exchange, "/submissions/" + id + "/contents");
+                for (String typeName : itemTypeRouter.getTypeNames()) {
+                    link(body, typeName + ":create", uri(exchange, "/submissions/" + id + "/contents/" + typeName));
+                }
+                respond(exchange, startNanos, 200, HAL_JSON, body.toString());
+            } else if ("POST".equals(method) && (matcher = itemCreate.matcher(path)).matches()) {
+                MockSubmission mockSubmission = submissions.get(matcher.group(1));
+                int items = countItems(exchange);
+                if (mockSubmission == null) {
+                    respond(exchange, startNanos, 404, null, null);
+                    return;
+                }
+                if (fail()) {
+                    respond(exchange, startNanos, 500, null, null);
+                    return;
+                }
+                mockSubmission.itemPosted(items);
+                String location = uri(exchange, "/" + matcher.group(2) + "/" + UUID.randomUUID());
+                exchange.getResponseHeaders().set("Location", location);
+                ObjectNode body = mapper.createObjectNode();
+                link(body, "self", location);
+                respond(exchange, startNanos, 201, HAL_JSON, body.toString());
+            } else if ("GET".equals(method) && (matcher = processingStatuses.matcher(path)).matches()) {
+                String id = matcher.group(1);
+                respondWith(exchange, startNanos, id, mockSubmission -> processingStatusesPage(exchange, id, mockSubmission));
+            } else if ("GET".equals(method) && (matcher = submission.matcher(path)).matches()) {
+                String id = matcher.group(1);
+                respondWith(exchange, startNanos, id, mockSubmission -> {
+                    ObjectNode body = self(exchange, "/submissions/" + id);
+                    link(body, "submissionStatus", uri(exchange, "/submissionStatuses/" + id));
+                    link(body, "contents", uri(exchange, "/submissions/" + id + "/contents"));
+                    link(body, "processingStatuses", uri(exchange, "/submissions/" + id + "/processingStatuses"));
+                    return body;
+                });
+            } else if ((matcher = submissionStatus.matcher(path)).matches()) {
+                String id = matcher.group(1);
+                if ("PATCH".equals(method)) {
+                    drain(exchange);
+                    respondWith(exchange, startNanos, id, mockSubmission -> {
+                        mockSubmission.submitted();
+                        return statusResource(exchange, id, mockSubmission);
+                    });
+                } else {
+                    respondWith(exchange, startNanos, id, mockSubmission -> statusResource(exchange, id, mockSubmission));
+                }
+            } else if ("DELETE".equals(method) && (matcher = submission.matcher(path)).matches()) {
+                respond(exchange, startNanos, submissions.remove(matcher.group(1)) == null ? 404 : 204, null, null);
+            } else if ((matcher = item.matcher(path)).matches() && itemTypeRouter.getTypeNames().contains(matcher.group(1))) {
+                drain(exchange);
+                if ("DELETE".equals(method)) {
+                    respond(exchange, startNanos, 204, null, null);
+                } else {
+                    respond(exchange, startNanos, 200, HAL_JSON, self(exchange, "/" + matcher.group(1) + "/" + matcher.group(2)).toString());
+                }
+            } else {
+                drain(exchange);
+                respond(exchange, startNanos, 404, null, null);
+            }
+        } catch (RuntimeException | IOException e) {
+            logger.warn("Mock API failed on {} {}", method, path, e);
+            respondNow(exchange, startNanos, 500, null, null);
+        }
+    }
+
+    private void respondWith(HttpExchange exchange, long startNanos, String submissionId,
+                             Function<MockSubmission, ObjectNode> body) {
+        MockSubmission mockSubmission = submissions.get(submissionId);
+        if (mockSubmission == null) {
+            respond(exchange, startNanos, 404, null, null);
+        } else {
+            respond(exchange, startNanos, 200, HAL_JSON, body.apply(mockSubmission).toString());
+        }
+    }
+
+    private ObjectNode statusResource(HttpExchange exchange, String id, MockSubmission mockSubmission) {
+        ObjectNode body = self(exchange, "/submissionStatuses/" + id);
+        body.put("status", mockSubmission.status());
+        if (mockSubmission.isValidated()) {
+            link(body, "availableStatuses", uri(exchange, "/submissionStatuses/" + id + "/availableStatuses"));
+        }
+        return body;
+    }
+
+    private ObjectNode processingStatusesPage(HttpExchange exchange, String id, MockSubmission mockSubmission) {
+        Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+        int page = Integer.parseInt(query.getOrDefault("page", "0"));
+        int size = Integer.parseInt(query.getOrDefault("size", "20"));
+        int total = mockSubmission.items.get();
+        String status = mockSubmission.isProcessed() ? "Completed" : "Processing";
+
+        ObjectNode body = self(exchange, "/submissions/" + id + "/processingStatuses");
+        ArrayNode statuses = body.putObject("_embedded").putArray("processingStatuses");
+        for (int i = page * size; i < Math.min(total, (page + 1) * size); i++) {
+            statuses.addObject().put("id", id + "-" + i).put("status", status);
+        }
+        body.putObject("page")
+                .put("size", size)
+                .put("totalElements", total)
+                .put("totalPages", Math.max(1, (total + size - 1) / size))
+                .put("number", page);
+        return body;
+    }
+
+    /**
+     * Send the response after the configured latency, without holding a server thread while waiting.
+     */
+    private void respond(HttpExchange exchange, long startNanos, int status, String contentType, String body) {
+        long delayMs = latencyMs + (latencyJitterMs > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMs + 1) : 0);
+        if (delayMs <= 0) {
+            respondNow(exchange, startNanos, status, contentType, body);
+        } else {
+            delayer.schedule(() -> executor.execute(() -> respondNow(exchange, startNanos, status, contentType, body)),
+                    delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void respondNow(HttpExchange exchange, long startNanos, int status, String contentType, String body) {
+        try {
+            byte[] bytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+            if (contentType != null) {
+                exchange.getResponseHeaders().set("Content-Type", contentType);
+            }
+            exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+            if (bytes.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Could not send mock response", e);
+        } finally {
+            exchange.close();
+            latencyMetrics.recordSince(Operations.MOCK_HANDLE, startNanos);
+        }
+    }
+
+    private boolean fail() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    /**
+     * Read the request body, counting the documents in it: one for an object, or the number of elements of an array.
+     */
+    private int countItems(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody(); JsonParser parser = jsonFactory.createParser(in)) {
+            JsonToken first = parser.nextToken();
+            if (first != JsonToken.START_ARRAY) {
+                while (parser.nextToken() != null) {
+                    parser.skipChildren();
+                }
+                return first == null ? 0 : 1;
+            }
+            int count = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                count++;
+            }
+            return count;
+        }
+    }
+
+    private static void drain(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) >= 0) {
+                // discard
+            }
+        }
+    }
+
+    private String token() {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        long exp = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + tokenTtlSeconds;
+        return encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8))
+                + "." + encoder.encodeToString(("{\"sub\":\"mock\",\"exp\":" + exp + "}").getBytes(StandardCharsets.UTF_8))
+                + ".";
+    }
+
+    private String uri(HttpExchange exchange, String path) {
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        return "http://" + (host == null ? "localhost:" + port : host) + "/" + basePath + path;
+    }
+
+    private ObjectNode self(HttpExchange exchange, String path) {
+        ObjectNode body = mapper.createObjectNode();
+        link(body, "self", uri(exchange, path));
+        return body;
+    }
+
+    private static void link(ObjectNode resource, String rel, String href) {
+        ObjectNode links = resource.has("_links") ? (ObjectNode) resource.get("_links") : resource.putObject("_links");
+        links.putObject(rel).put("href", href);
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery != null) {
+            for (String parameter : rawQuery.split("&")) {
+                String[] nameAndValue = parameter.split("=", 2);
+                query.put(nameAndValue[0], nameAndValue.length > 1 ? nameAndValue[1] : "");
+            }
+        }
+        return query;
+    }
+
+    private class MockSubmission {
+        private final AtomicInteger items = new AtomicInteger();
+        private volatile long lastChangeNanos = System.nanoTime();
+        private volatile long submittedNanos;
+
+        void itemPosted(int count) {
+            items.addAndGet(count);
+            lastChangeNanos = System.nanoTime();
+        }
+
+        void submitted() {
+            submittedNanos = System.nanoTime();
+        }
+
+        boolean isValidated() {
+            return System.nanoTime() - lastChangeNanos >= TimeUnit.MILLISECONDS.toNanos(validationDelayMs);
+        }
+
+        boolean isProcessed() {
+            return submittedNanos != 0 && System.nanoTime() - submittedNanos >= TimeUnit.MILLISECONDS.toNanos(processingDelayMs);
+        }
+
+        String status() {
+            if (submittedNanos == 0) return "Draft";
+            return isProcessed() ? "Completed" : "Submitted";
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package uk.ac.ebi.subs.stresstest.payload;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request body buffers for pooled item POSTs, so that steady-state requests do not allocate a body each.
+ * <p>
+ * Up to {@code payload.bufferPoolSize} released buffers are kept; when the pool is empty a new buffer is allocated,
+ * and buffers that have grown past {@code payload.maxBufferBytes} are dropped on release.
+ */
+@Component
+public class PayloadBufferPool {
+
+    @Value("${payload.bufferPoolSize:1024}")
+    int poolSize;
+    @Value("${payload.bufferBytes:4096}")
+    int bufferBytes;
+    @Value("${payload.maxBufferBytes:1048576}")
+    int maxBufferBytes;
+
+    private BlockingQueue<PayloadBuffer> pool;
+    private final LongAdder allocated = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        pool = new ArrayBlockingQueue<>(Math.max(poolSize, 1));
+    }
+
+    public PayloadBuffer acquire() {
+        PayloadBuffer buffer = pool.poll();
+        if (buffer == null) {
+            allocated.increment();
+            return new PayloadBuffer(bufferBytes);
+        }
+        return buffer;
+    }
+
+    public void release(PayloadBuffer buffer) {
+        if (buffer.capacity() > maxBufferBytes) return;
+        buffer.clear();
+        pool.offer(buffer);
+    }
+
+    /**
+     * @return buffers allocated because the pool was empty
+     */
+    public long getAllocated() {
+        return allocated.sum();
+    }
+}
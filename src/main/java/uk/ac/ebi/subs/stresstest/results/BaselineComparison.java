@@ -0,0 +1,151 @@
+package uk.ac.ebi.subs.stresstest.results;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.subs.stresstest.metrics.Operations;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares a run with a stored baseline run, given by {@code compare.baseline}, and sets the application's exit code
+ * to 2 if it has regressed: when the p99 latency of an operation has grown by more than
+ * {@code compare.maxP99IncreasePercent}, or overall request throughput has dropped by more than
+ * {@code compare.maxThroughputDecreasePercent}.
+ * <p>
+ * Only request operations with at least {@code compare.minCount} samples in the baseline are compared, so that sparse
+ * operations do not fail the comparison on noise; an operation missing from the run counts as a regression. The
+ * comparison is logged and written to {@code comparison.csv} in the run's results directory.
+ */
+@Component
+public class BaselineComparison implements ExitCodeGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BaselineComparison.class);
+
+    static final int REGRESSION_EXIT_CODE = 2;
+
+    @Value("${compare.baseline:}")
+    String baseline;
+    @Value("${compare.maxP99IncreasePercent:10}")
+    double maxP99IncreasePercent;
+    @Value("${compare.maxThroughputDecreasePercent:10}")
+    double maxThroughputDecreasePercent;
+    @Value("${compare.minCount:100}")
+    long minCount;
+
+    @Autowired
+    RunResults runResults;
+
+    private volatile boolean regressed;
+
+    public boolean isConfigured() {
+        return !baseline.isEmpty();
+    }
+
+    /**
+     * Compare a run with the baseline, if one is configured.
+     *
+     * @param runDir the run's results directory, or null if results were not written
+     * @return true if the run has regressed
+     */
+    public boolean compareIfConfigured(Path runDir) {
+        if (!isConfigured()) return false;
+        if (runDir == null) {
+            throw new IllegalStateException("compare.baseline is set but run results are disabled");
+        }
+        return compare(runDir);
+    }
+
+    /**
+     * @return true if the run in runDir has regressed against the baseline
+     */
+    public boolean compare(Path runDir) {
+        if (!isConfigured()) {
+            throw new IllegalStateException("set compare.baseline to the results directory of the baseline run");
+        }
+        Path baselineDir = Paths.get(baseline);
+        RunSummary base = runResults.readSummary(baselineDir);
+        RunSummary run = runResults.readSummary(runDir);
+
+        List<String> rows = new ArrayList<>();
+        List<String> regressions = new ArrayList<>();
+        rows.add("metric,baseline,run,change_percent,limit_percent,regressed");
+
+        double throughputChange = change(base.getRequestsPerSecond(), run.getRequestsPerSecond());
+        boolean throughputRegressed = -throughputChange > maxThroughputDecreasePercent;
+        rows.add(row("requests_per_s", base.getRequestsPerSecond(), run.getRequestsPerSecond(), throughputChange,
+                -maxThroughputDecreasePercent, throughputRegressed));
+        if (throughputRegressed) {
+            regressions.add(String.format(Locale.ROOT, "throughput %.1f/s -> %.1f/s", base.getRequestsPerSecond(), run.getRequestsPerSecond()));
+        }
+
+        base.getOperations().forEach((operation, baseOperation) -> {
+            if (!Operations.isRequest(operation) || baseOperation.getCount() < minCount) return;
+
+            RunSummary.OperationSummary runOperation = run.getOperations().get(operation);
+            if (runOperation == null || runOperation.getCount() == 0) {
+                rows.add(String.format(Locale.ROOT, "%s p99_ms,%.3f,,,,true", operation, baseOperation.getP99Ms()));
+                regressions.add(operation + " missing from the run");
+                return;
+            }
+            double p99Change = change(baseOperation.getP99Ms(), runOperation.getP99Ms());
+            boolean p99Regressed = p99Change > maxP99IncreasePercent;
+            rows.add(row(operation + " p99_ms", baseOperation.getP99Ms(), runOperation.getP99Ms(), p99Change,
+                    maxP99IncreasePercent, p99Regressed));
+            if (p99Regressed) {
+                regressions.add(String.format(Locale.ROOT, "%s p99 %.3fms -> %.3fms", operation, baseOperation.getP99Ms(), runOperation.getP99Ms()));
+            }
+        });
+
+        writeCsv(runDir.resolve("comparison.csv"), rows);
+        StringBuilder table = new StringBuilder();
+        rows.forEach(row -> table.append(String.format("%n  ")).append(row));
+        logger.info("Comparison of {} with baseline {}:{}", runDir, baselineDir, table);
+
+        if (regressions.isEmpty()) {
+            logger.info("No regression against baseline {}", base.getName());
+            return false;
+        }
+        regressed = true;
+        logger.error("Regressed against baseline {}: {}", base.getName(), regressions);
+        return true;
+    }
+
+    @Override
+    public int getExitCode() {
+        return regressed ? REGRESSION_EXIT_CODE : 0;
+    }
+
+    /**
+     * @return the change from baseline to run as a percentage of the baseline
+     */
+    private static double change(double baseline, double run) {
+        if (baseline == 0) {
+            return run == 0 ? 0 : Double.POSITIVE_INFINITY;
+        }
+        return (run - baseline) / baseline * 100;
+    }
+
+    private static String row(String metric, double baseline, double run, double change, double limit, boolean regressed) {
+        return String.format(Locale.ROOT, "%s,%.3f,%.3f,%.1f,%.1f,%b", metric, baseline, run, change, limit, regressed);
+    }
+
+    private static void writeCsv(Path path, List<String> rows) {
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+            rows.forEach(csv::println);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package uk.ac.ebi.subs.stresstest.results;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.subs.stresstest.metrics.LatencyMetrics;
+import uk.ac.ebi.subs.stresstest.metrics.LiveMetrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Writes each run's results to its own directory, {@code <results.dir>/<results.name>}, named after the start time
+ * unless {@code results.name} is set. The name is taken afresh for each run in the JVM, with a {@code -2}, {@code -3}
+ * ... suffix if a directory of that name exists, so that no run overwrites another:
+ * <ul>
+ * <li>{@code config.json} - the properties set for the run, with secrets masked; defaults apply to the rest</li>
+ * <li>{@code environment.json} - JVM, OS, host and command line</li>
+ * <li>{@code summary.json} - counts, throughput and latency percentiles per operation, see {@link RunSummary}</li>
+ * <li>{@code latency.hlog} - the full histogram of each operation</li>
+ * <li>{@code timeline.csv} and {@code timeline-operations.csv} - every live metrics interval, overall and per
+ * operation</li>
+ * </ul>
+ */
+@Component
+public class RunResults {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunResults.class);
+
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+    private static final Pattern SECRET = Pattern.compile("(?i).*(password|secret|token|credential).*");
+
+    @Value("${results.enabled:true}")
+    boolean enabled;
+    @Value("${results.dir:${metrics.dir:metrics}/results}")
+    String resultsDir;
+    @Value("${results.name:}")
+    String name;
+
+    @Autowired
+    ConfigurableEnvironment environment;
+    @Autowired
+    ApplicationArguments applicationArguments;
+
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private String runName;
+    private long runStartNanos;
+    private PrintWriter timeline;
+    private PrintWriter operationsTimeline;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the directory of the current run, named on the run's first result
+     */
+    public synchronized Path getRunDir() {
+        return Paths.get(resultsDir, runName());
+    }
+
+    private String runName() {
+        if (runName == null) {
+            String base = name.isEmpty() ? LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) : name;
+            String candidate = base;
+            for (int suffix = 2; Files.exists(Paths.get(resultsDir, candidate)); suffix++) {
+                candidate = base + "-" + suffix;
+            }
+            runName = candidate;
+            runStartNanos = System.nanoTime();
+        }
+        return runName;
+    }
+
+    /**
+     * Append a live metrics interval to the timelines.
+     */
+    public synchronized void intervalSampled(LiveMetrics.Snapshot snapshot, int submissionsInFlight, int itemsInFlight) {
+        if (!enabled) return;
+
+        if (timeline == null) {
+            timeline = csv("timeline.csv",
+                    "epoch_ms,elapsed_s,requests_per_s,failures,error_rate,submissions_in_flight,items_in_flight,allocated_bytes_per_request");
+            operationsTimeline = csv("timeline-operations.csv",
+                    "epoch_ms,elapsed_s,operation,count,per_s,p50_ms,p99_ms,max_ms");
+        }
+
+        long epochMillis = System.currentTimeMillis();
+        double elapsedSeconds = (System.nanoTime() - runStartNanos) / 1e9;
+        timeline.println(String.format(Locale.ROOT, "%d,%.3f,%.3f,%d,%.5f,%d,%d,%.0f",
+                epochMillis,
+                elapsedSeconds,
+                snapshot.getRequestsPerSecond(),
+                snapshot.getFailures(),
+                snapshot.getErrorRate(),
+                submissionsInFlight,
+                itemsInFlight,
+                snapshot.getAllocatedBytesPerRequest()));
+        snapshot.getIntervals().forEach((operation, histogram) -> {
+            if (histogram.getTotalCount() == 0) return;
+            operationsTimeline.println(String.format(Locale.ROOT, "%d,%.3f,%s,%d,%.3f,%.3f,%.3f,%.3f",
+                    epochMillis,
+                    elapsedSeconds,
+                    operation,
+                    histogram.getTotalCount(),
+                    snapshot.getSeconds() > 0 ? histogram.getTotalCount() / snapshot.getSeconds() : 0,
+                    histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                    histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                    histogram.getMaxValue() / NANOS_PER_MILLI));
+        });
+        timeline.flush();
+        operationsTimeline.flush();
+    }
+
+    /**
+     * Write the results of a finished run.
+     *
+     * @return the run's results directory, or null if results are not enabled
+     */
+    public synchronized Path write(RunSummary summary, Map<String, Histogram> histograms) {
+        if (!enabled) return null;
+
+        Path runDir = createRunDir();
+        summary.setName(runName);
+        writeJson(runDir.resolve("config.json"), config());
+        writeJson(runDir.resolve("environment.json"), environment(summary));
+        writeJson(runDir.resolve("summary.json"), summary);
+        LatencyMetrics.writeHistogramLog(histograms, runDir.resolve("latency.hlog"));
+
+        if (timeline != null) {
+            timeline.close();
+            operationsTimeline.close();
+            timeline = null;
+            operationsTimeline = null;
+        }
+        runName = null;
+        logger.info("Run results written to {}", runDir.toAbsolutePath());
+        return runDir;
+    }
+
+    /**
+     * @return the summary stored in a results directory
+     */
+    public RunSummary readSummary(Path runDir) {
+        try {
+            return mapper.readValue(runDir.resolve("summary.json").toFile(), RunSummary.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read the run summary in " + runDir.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Properties set explicitly, on the command line or in property files, taking the value in effect.
+     */
+    private Map<String, String> config() {
+        Map<String, String> config = new TreeMap<>();
+        for (PropertySource<?> source : environment.getPropertySources()) {
+            if (StandardEnvironment.SYSTEM_ENVIRONMENT_PROPERTY_SOURCE_NAME.equals(source.getName())
+                    || StandardEnvironment.SYSTEM_PROPERTIES_PROPERTY_SOURCE_NAME.equals(source.getName())
+                    || !(source instanceof EnumerablePropertySource)) {
+                continue;
+            }
+            for (String property : ((EnumerablePropertySource<?>) source).getPropertyNames()) {
+                config.computeIfAbsent(property, key -> SECRET.matcher(key).matches() ? "****" : environment.getProperty(key));
+            }
+        }
+        return config;
+    }
+
+    private Map<String, Object> environment(RunSummary summary) {
+        Map<String, Object> environment = new LinkedHashMap<>();
+        environment.put("start", Instant.ofEpochMilli(summary.getStartEpochMillis()).toString());
+        environment.put("end", Instant.now().toString());
+        environment.put("host", hostName());
+        environment.put("os", System.getProperty("os.name") + " " + System.getProperty("os.version") + " " + System.getProperty("os.arch"));
+        environment.put("processors", Runtime.getRuntime().availableProcessors());
+        environment.put("maxHeapBytes", Runtime.getRuntime().maxMemory());
+        environment.put("java", System.getProperty("java.vendor") + " " + System.getProperty("java.version"));
+        environment.put("jvm", System.getProperty("java.vm.name") + " " + System.getProperty("java.vm.version"));
+        environment.put("jvmArguments", ManagementFactory.getRuntimeMXBean().getInputArguments());
+        environment.put("arguments", Arrays.asList(applicationArguments.getSourceArgs()));
+        environment.put("testerVersion", getClass().getPackage().getImplementationVersion());
+        return environment;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+
+    private Path createRunDir() {
+        Path runDir = getRunDir();
+        try {
+            Files.createDirectories(runDir);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return runDir;
+    }
+
+    private PrintWriter csv(String fileName, String header) {
+        try {
+            PrintWriter writer = new PrintWriter(Files.newBufferedWriter(createRunDir().resolve(fileName), StandardCharsets.UTF_8));
+            writer.println(header);
+            return writer;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void writeJson(Path path, Object value) {
+        try {
+            mapper.writeValue(path.toFile(), value);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
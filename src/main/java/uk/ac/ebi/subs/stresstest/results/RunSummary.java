@@ -0,0 +1,215 @@
+package uk.ac.ebi.subs.stresstest.results;
+
+import org.HdrHistogram.Histogram;
+import uk.ac.ebi.subs.stresstest.metrics.Operations;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * What a run achieved, stored as {@code summary.json} in its results directory and compared against a baseline.
+ * Latencies are in milliseconds and throughput in operations per second over the measured part of the run.
+ */
+public class RunSummary {
+
+    private String name;
+    private long startEpochMillis;
+    private double durationSeconds;
+    private long submissions;
+    private long failedSubmissions;
+    private long failedItems;
+    private long failedStatusUpdates;
+    private long requests;
+    private double requestsPerSecond;
+    private Map<String, OperationSummary> operations = new TreeMap<>();
+
+    /**
+     * @param seconds how long the histograms were recorded for, excluding any warm-up
+     */
+    public static RunSummary of(Map<String, Histogram> histograms, double seconds) {
+        RunSummary summary = new RunSummary();
+        summary.durationSeconds = seconds;
+        histograms.forEach((operation, histogram) -> {
+            summary.operations.put(operation, OperationSummary.of(histogram, seconds));
+            if (Operations.isRequest(operation)) {
+                summary.requests += histogram.getTotalCount();
+            }
+        });
+        summary.requestsPerSecond = seconds > 0 ? summary.requests / seconds : 0;
+        return summary;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getStartEpochMillis() {
+        return startEpochMillis;
+    }
+
+    public void setStartEpochMillis(long startEpochMillis) {
+        this.startEpochMillis = startEpochMillis;
+    }
+
+    public double getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(double durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    public long getSubmissions() {
+        return submissions;
+    }
+
+    public void setSubmissions(long submissions) {
+        this.submissions = submissions;
+    }
+
+    public long getFailedSubmissions() {
+        return failedSubmissions;
+    }
+
+    public void setFailedSubmissions(long failedSubmissions) {
+        this.failedSubmissions = failedSubmissions;
+    }
+
+    public long getFailedItems() {
+        return failedItems;
+    }
+
+    public void setFailedItems(long failedItems) {
+        this.failedItems = failedItems;
+    }
+
+    public long getFailedStatusUpdates() {
+        return failedStatusUpdates;
+    }
+
+    public void setFailedStatusUpdates(long failedStatusUpdates) {
+        this.failedStatusUpdates = failedStatusUpdates;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public void setRequests(long requests) {
+        this.requests = requests;
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    public Map<String, OperationSummary> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(Map<String, OperationSummary> operations) {
+        this.operations = operations;
+    }
+
+    /**
+     * Count, throughput and latency percentiles of one operation.
+     */
+    public static class OperationSummary {
+
+        private static final double NANOS_PER_MILLI = 1_000_000d;
+
+        private long count;
+        private double perSecond;
+        private double meanMs;
+        private double p50Ms;
+        private double p90Ms;
+        private double p99Ms;
+        private double p999Ms;
+        private double maxMs;
+
+        static OperationSummary of(Histogram histogram, double seconds) {
+            OperationSummary summary = new OperationSummary();
+            summary.count = histogram.getTotalCount();
+            summary.perSecond = seconds > 0 ? summary.count / seconds : 0;
+            summary.meanMs = histogram.getMean() / NANOS_PER_MILLI;
+            summary.p50Ms = histogram.getValueAtPercentile(50) / NANOS_PER_MILLI;
+            summary.p90Ms = histogram.getValueAtPercentile(90) / NANOS_PER_MILLI;
+            summary.p99Ms = histogram.getValueAtPercentile(99) / NANOS_PER_MILLI;
+            summary.p999Ms = histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI;
+            summary.maxMs = histogram.getMaxValue() / NANOS_PER_MILLI;
+            return summary;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public double getPerSecond() {
+            return perSecond;
+        }
+
+        public void setPerSecond(double perSecond) {
+            this.perSecond = perSecond;
+        }
+
+        public double getMeanMs() {
+            return meanMs;
+        }
+
+        public void setMeanMs(double meanMs) {
+            this.meanMs = meanMs;
+        }
+
+        public double getP50Ms() {
+            return p50Ms;
+        }
+
+        public void setP50Ms(double p50Ms) {
+            this.p50Ms = p50Ms;
+        }
+
+        public double getP90Ms() {
+            return p90Ms;
+        }
+
+        public void setP90Ms(double p90Ms) {
+            this.p90Ms = p90Ms;
+        }
+
+        public double getP99Ms() {
+            return p99Ms;
+        }
+
+        public void setP99Ms(double p99Ms) {
+            this.p99Ms = p99Ms;
+        }
+
+        public double getP999Ms() {
+            return p999Ms;
+        }
+
+        public void setP999Ms(double p999Ms) {
+            this.p999Ms = p999Ms;
+        }
+
+        public double getMaxMs() {
+            return maxMs;
+        }
+
+        public void setMaxMs(double maxMs) {
+            this.maxMs = maxMs;
+        }
+    }
+}
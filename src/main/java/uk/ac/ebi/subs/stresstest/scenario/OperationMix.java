@@ -0,0 +1,43 @@
+package uk.ac.ebi.subs.stresstest.scenario;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Picks operations at random in proportion to their weights.
+ */
+class OperationMix {
+
+    private final ScenarioOperation[] operations;
+    private final double[] cumulativeWeights;
+
+    OperationMix(Map<String, Double> weights) {
+        operations = new ScenarioOperation[weights.size()];
+        cumulativeWeights = new double[weights.size()];
+
+        double total = 0;
+        int i = 0;
+        for (Map.Entry<String, Double> weight : weights.entrySet()) {
+            if (weight.getValue() == null || weight.getValue() < 0) {
+                throw new IllegalArgumentException("weight of " + weight.getKey() + " must not be negative");
+            }
+            total += weight.getValue();
+            operations[i] = ScenarioOperation.forName(weight.getKey());
+            cumulativeWeights[i] = total;
+            i++;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("operation mix needs at least one positive weight: " + weights);
+        }
+    }
+
+    ScenarioOperation pick(Random random) {
+        double point = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (point < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+}
@@ -0,0 +1,86 @@
+package uk.ac.ebi.subs.stresstest.scenario;
+
+import uk.ac.ebi.subs.stresstest.schedule.RateSchedules;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One phase of a {@link Scenario}.
+ * <p>
+ * The rate uses the {@link RateSchedules} syntax, timed from the start of the phase, and the duration takes the same
+ * suffixes. The mix maps {@link ScenarioOperation} names to relative weights. Latencies recorded during a warm-up
+ * phase are dropped when it ends.
+ */
+public class Phase {
+
+    private String name;
+    private String duration;
+    private String rate;
+    private boolean warmup;
+    private Map<String, Double> mix = new LinkedHashMap<>();
+
+    void validate() {
+        if (duration == null || rate == null) {
+            throw new IllegalArgumentException("phase " + name + " needs a duration and a rate");
+        }
+        RateSchedules.parseDurationNanos(duration);
+        RateSchedules.parse(rate);
+        new OperationMix(mix);
+    }
+
+    public long getDurationNanos() {
+        return RateSchedules.parseDurationNanos(duration);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDuration() {
+        return duration;
+    }
+
+    public void setDuration(String duration) {
+        this.duration = duration;
+    }
+
+    public String getRate() {
+        return rate;
+    }
+
+    public void setRate(String rate) {
+        this.rate = rate;
+    }
+
+    public boolean isWarmup() {
+        return warmup;
+    }
+
+    public void setWarmup(boolean warmup) {
+        this.warmup = warmup;
+    }
+
+    public Map<String, Double> getMix() {
+        return mix;
+    }
+
+    public void setMix(Map<String, Double> mix) {
+        this.mix = mix;
+    }
+
+    @Override
+    public String toString() {
+        return "Phase{" +
+                "name='" + name + '\'' +
+                ", duration='" + duration + '\'' +
+                ", rate='" + rate + '\'' +
+                ", warmup=" + warmup +
+                ", mix=" + mix +
+                '}';
+    }
+}
@@ -0,0 +1,100 @@
+package uk.ac.ebi.subs.stresstest.scenario;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Submissions and items created during a scenario, for the operations that read, update or delete existing resources.
+ * <p>
+ * Each keeps up to {@code scenario.poolSize} resources; once full, a new resource replaces a random one. Resources are
+ * only collected while a scenario is running.
+ */
+@Component
+public class ResourcePool {
+
+    @Value("${scenario.poolSize:10000}")
+    int poolSize;
+
+    private volatile boolean collecting;
+    private final List<Resource> submissions = new ArrayList<>();
+    private final List<Resource> items = new ArrayList<>();
+    private final Random random = new Random();
+
+    /**
+     * A created resource and the AAP identity that created it.
+     */
+    public static final class Resource {
+        private final URI uri;
+        private final int identity;
+
+        Resource(URI uri, int identity) {
+            this.uri = uri;
+            this.identity = identity;
+        }
+
+        public URI getUri() {
+            return uri;
+        }
+
+        public int getIdentity() {
+            return identity;
+        }
+    }
+
+    void startCollecting() {
+        collecting = true;
+    }
+
+    void stopCollecting() {
+        collecting = false;
+    }
+
+    public void submissionCreated(URI uri, int identity) {
+        if (collecting) add(submissions, new Resource(uri, identity));
+    }
+
+    public void itemCreated(URI uri, int identity) {
+        if (collecting && uri != null) add(items, new Resource(uri, identity));
+    }
+
+    /**
+     * @return a random submission, or null if there is none
+     */
+    Resource submission(boolean remove) {
+        return pick(submissions, remove);
+    }
+
+    /**
+     * @return a random item, or null if there is none
+     */
+    Resource item(boolean remove) {
+        return pick(items, remove);
+    }
+
+    private synchronized void add(List<Resource> resources, Resource resource) {
+        if (resources.size() < poolSize) {
+            resources.add(resource);
+        } else {
+            resources.set(random.nextInt(resources.size()), resource);
+        }
+    }
+
+    private synchronized Resource pick(List<Resource> resources, boolean remove) {
+        if (resources.isEmpty()) return null;
+
+        int index = random.nextInt(resources.size());
+        Resource resource = resources.get(index);
+        if (remove) {
+            Resource last = resources.remove(resources.size() - 1);
+            if (index < resources.size()) {
+                resources.set(index, last);
+            }
+        }
+        return resource;
+    }
+}
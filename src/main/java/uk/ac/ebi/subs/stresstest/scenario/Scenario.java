@@ -0,0 +1,77 @@
+package uk.ac.ebi.subs.stresstest.scenario;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A declarative workload: phases run one after another, each at its own rate and mix of operations.
+ * <p>
+ * Read from YAML, or JSON if the file name ends in {@code .json}, e.g.
+ * <pre>
+ * name: production-like
+ * phases:
+ *   - name: warm-up
+ *     duration: 2m
+ *     rate: constant:5/s
+ *     warmup: true
+ *     mix: {createSubmission: 1}
+ *   - name: soak
+ *     duration: 1h
+ *     rate: constant:50/s
+ *     mix: {createSubmission: 2, getSubmission: 5, getContents: 3, updateItem: 1, patchItem: 1, deleteItem: 1}
+ * </pre>
+ */
+public class Scenario {
+
+    private String name = "scenario";
+    private List<Phase> phases = new ArrayList<>();
+
+    public static Scenario load(Path path) {
+        ObjectMapper mapper = path.toString().endsWith(".json") ? new ObjectMapper() : new ObjectMapper(new YAMLFactory());
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true);
+        try {
+            Scenario scenario = mapper.readValue(path.toFile(), Scenario.class);
+            scenario.validate();
+            return scenario;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read scenario " + path, e);
+        }
+    }
+
+    void validate() {
+        if (phases.isEmpty()) {
+            throw new IllegalArgumentException("scenario " + name + " has no phases");
+        }
+        phases.forEach(Phase::validate);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public List<Phase> getPhases() {
+        return phases;
+    }
+
+    public void setPhases(List<Phase> phases) {
+        this.phases = phases;
+    }
+
+    @Override
+    public String toString() {
+        return "Scenario{" +
+                "name='" + name + '\'' +
+                ", phases=" + phases +
+                '}';
+    }
+}
@@ -0,0 +1,39 @@
+package uk.ac.ebi.subs.stresstest.scenario;
+
+/**
+ * The operations a scenario phase can mix. All but {@link #CREATE_SUBMISSION} act on a submission or item created
+ * earlier in the run, picked at random from the {@link ResourcePool}.
+ */
+public enum ScenarioOperation {
+
+    /** Create a submission and post its items, as in a plain run. */
+    CREATE_SUBMISSION("createSubmission"),
+    GET_SUBMISSION("getSubmission"),
+    GET_CONTENTS("getContents"),
+    GET_ITEM("getItem"),
+    /** GET an item and PUT it back. */
+    UPDATE_ITEM("updateItem"),
+    /** PATCH the description of an item. */
+    PATCH_ITEM("patchItem"),
+    DELETE_ITEM("deleteItem"),
+    DELETE_SUBMISSION("deleteSubmission");
+
+    private final String name;
+
+    ScenarioOperation(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static ScenarioOperation forName(String name) {
+        for (ScenarioOperation operation : values()) {
+            if (operation.name.equals(name)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("unknown scenario operation '" + name + "'");
+    }
+}
@@ -0,0 +1,187 @@
+package uk.ac.ebi.subs.stresstest.scenario;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.subs.stresstest.auth.AapTokenManager;
+import uk.ac.ebi.subs.stresstest.execution.ExecutionEngine;
+import uk.ac.ebi.subs.stresstest.execution.InFlightTracker;
+import uk.ac.ebi.subs.stresstest.metrics.LatencyMetrics;
+import uk.ac.ebi.subs.stresstest.metrics.Operations;
+import uk.ac.ebi.subs.stresstest.schedule.OpenLoopScheduler;
+import uk.ac.ebi.subs.stresstest.schedule.RateSchedules;
+import uk.ac.ebi.subs.stresstest.schedule.ScheduledStart;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs the phases of a {@link Scenario} one after another. Within a phase, operations are started open-loop at the
+ * phase's rate, each picked at random from its mix.
+ * <p>
+ * Submissions are created and their items posted as in a plain run, on the submission executor. The other operations
+ * run on the item executor, with the identity that created the resource they act on, and their latency is recorded as
+ * {@code scenario.<operation>}. When there is nothing yet for an operation to act on, it is skipped.
+ * <p>
+ * At the end of a warm-up phase, the runner waits for its operations in flight and then hands over to the caller,
+ * which waits for its own work and starts measuring afresh.
+ */
+@Component
+public class ScenarioRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScenarioRunner.class);
+
+    @Value("${scenario.seed:1}")
+    long seed;
+
+    @Autowired
+    RestTemplate restTemplate;
+    @Autowired
+    ExecutionEngine executionEngine;
+    @Autowired
+    LatencyMetrics latencyMetrics;
+    @Autowired
+    AapTokenManager tokenManager;
+    @Autowired
+    ResourcePool resourcePool;
+
+    /**
+     * @param createSubmission creates a submission and posts its items, with latencies measured from the given start
+     * @param endWarmup        run after a warm-up phase, once its operations are done, to wait for the submissions in
+     *                         flight and discard what was measured so far
+     */
+    public void run(Scenario scenario, Consumer<ScheduledStart> createSubmission, Runnable endWarmup) {
+        logger.info("Running scenario {} with {} phases", scenario.getName(), scenario.getPhases().size());
+        Random random = new Random(seed);
+        InFlightTracker inFlight = new InFlightTracker();
+
+        resourcePool.startCollecting();
+        try {
+            for (Phase phase : scenario.getPhases()) {
+                runPhase(phase, random, createSubmission, endWarmup, inFlight);
+            }
+            inFlight.await();
+        } finally {
+            resourcePool.stopCollecting();
+        }
+    }
+
+    private void runPhase(Phase phase, Random random, Consumer<ScheduledStart> createSubmission, Runnable endWarmup,
+                          InFlightTracker inFlight) {
+        OperationMix mix = new OperationMix(phase.getMix());
+        OpenLoopScheduler scheduler = new OpenLoopScheduler(phase.getName(), RateSchedules.parse(phase.getRate()));
+        Map<ScenarioOperation, Long> started = new EnumMap<>(ScenarioOperation.class);
+        Map<ScenarioOperation, Long> skipped = new EnumMap<>(ScenarioOperation.class);
+
+        logger.info("Phase {}{}: {} at {}, mix {}",
+                phase.getName(), phase.isWarmup() ? " (warm-up)" : "", phase.getDuration(), scheduler.getRateSchedule(), phase.getMix());
+        long endNanos = System.nanoTime() + phase.getDurationNanos();
+
+        ScheduledStart start;
+        while ((start = scheduler.awaitNextStart()).getIntendedStartNanos() < endNanos) {
+            ScenarioOperation operation = mix.pick(random);
+            if (dispatch(operation, start, scheduler, createSubmission, inFlight)) {
+                started.merge(operation, 1L, Long::sum);
+            } else {
+                skipped.merge(operation, 1L, Long::sum);
+            }
+        }
+
+        logger.info("Phase {} done: started {}, skipped for lack of resources {}, max start lag {}ms",
+                phase.getName(), started, skipped, TimeUnit.NANOSECONDS.toMillis(scheduler.getMaxLagNanos()));
+
+        if (phase.isWarmup()) {
+            inFlight.await();
+            endWarmup.run();
+            logger.info("Warm-up phase {} is over, latencies and allocation recorded so far are discarded", phase.getName());
+        }
+    }
+
+    /**
+     * @return false if the operation was skipped because there is no resource for it to act on
+     */
+    private boolean dispatch(ScenarioOperation operation, ScheduledStart start, OpenLoopScheduler scheduler,
+                             Consumer<ScheduledStart> createSubmission, InFlightTracker inFlight) {
+        if (operation == ScenarioOperation.CREATE_SUBMISSION) {
+            executionEngine.submitSubmission(tokenManager.bind(tokenManager.nextIdentity(), () -> {
+                scheduler.started(start, operation.getName());
+                createSubmission.accept(start);
+            }));
+            return true;
+        }
+
+        ResourcePool.Resource resource;
+        switch (operation) {
+            case GET_SUBMISSION:
+            case GET_CONTENTS:
+                resource = resourcePool.submission(false);
+                break;
+            case DELETE_SUBMISSION:
+                resource = resourcePool.submission(true);
+                break;
+            default:
+                resource = resourcePool.item(operation == ScenarioOperation.DELETE_ITEM);
+        }
+        if (resource == null) {
+            return false;
+        }
+
+        inFlight.track(executionEngine.submitItem(tokenManager.bind(resource.getIdentity(), () -> {
+            scheduler.started(start, operation.getName() + " " + resource.getUri());
+            execute(operation, resource.getUri());
+            latencyMetrics.recordSince(Operations.scenario(operation.getName()), start.getIntendedStartNanos());
+        })).handle((result, throwable) -> {
+            if (throwable != null) {
+                logger.debug("{} of {} failed", operation.getName(), resource.getUri(), throwable);
+            }
+            return null;
+        }));
+        return true;
+    }
+
+    private void execute(ScenarioOperation operation, URI uri) {
+        switch (operation) {
+            case GET_SUBMISSION:
+            case GET_ITEM:
+                restTemplate.getForObject(uri, String.class);
+                break;
+            case GET_CONTENTS:
+                restTemplate.getForObject(uri + "/contents", String.class);
+                break;
+            case UPDATE_ITEM:
+                String item = restTemplate.getForObject(uri, String.class);
+                restTemplate.exchange(uri, HttpMethod.PUT, new HttpEntity<>(item, jsonHeaders()), String.class);
+                break;
+            case PATCH_ITEM:
+                restTemplate.exchange(uri, HttpMethod.PATCH, new HttpEntity<>(
+                        Collections.singletonMap("description", "updated by the stress tester at " + System.currentTimeMillis()),
+                        jsonHeaders()
+                ), String.class);
+                break;
+            case DELETE_ITEM:
+            case DELETE_SUBMISSION:
+                restTemplate.delete(uri);
+                break;
+            default:
+                throw new IllegalArgumentException("not a request operation: " + operation);
+        }
+    }
+
+    private static HttpHeaders jsonHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return headers;
+    }
+}
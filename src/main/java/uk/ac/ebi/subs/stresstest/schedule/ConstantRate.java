@@ -0,0 +1,20 @@
+package uk.ac.ebi.subs.stresstest.schedule;
+
+public class ConstantRate implements RateSchedule {
+
+    private final double ratePerSecond;
+
+    public ConstantRate(double ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    @Override
+    public double ratePerSecond(long elapsedNanos) {
+        return ratePerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return "constant " + ratePerSecond + "/s";
+    }
+}
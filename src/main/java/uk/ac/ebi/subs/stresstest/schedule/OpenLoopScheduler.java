@@ -0,0 +1,108 @@
+package uk.ac.ebi.subs.stresstest.schedule;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands out start times at a target arrival rate, independent of how quickly earlier requests complete.
+ * <p>
+ * Callers reserve the next slot with {@link #awaitNextStart()}, which parks until the slot is due, then hand the work
+ * to an executor that is not throttled by the server. Once the work actually begins it should call
+ * {@link #started(ScheduledStart, String)}, which reports the intended and actual start times on the
+ * {@code uk.ac.ebi.subs.stresstest.schedule} logger.
+ */
+public class OpenLoopScheduler {
+
+    private static final Logger scheduleLogger = LoggerFactory.getLogger("uk.ac.ebi.subs.stresstest.schedule");
+
+    private final String name;
+    private final RateSchedule rateSchedule;
+
+    private long startNanos;
+    private long startEpochMillis;
+    private double nextOffsetNanos;
+    private boolean started = false;
+
+    private final AtomicLong scheduledCount = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+
+    public OpenLoopScheduler(String name, RateSchedule rateSchedule) {
+        this.name = name;
+        this.rateSchedule = rateSchedule;
+    }
+
+    /**
+     * Reserve the next start slot and park until it is due. If the caller is already behind schedule this returns
+     * immediately, and the slot keeps its original intended start time.
+     */
+    public ScheduledStart awaitNextStart() {
+        long intendedStartNanos = reserveSlot();
+
+        long waitNanos;
+        while ((waitNanos = intendedStartNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(waitNanos);
+        }
+
+        scheduledCount.incrementAndGet();
+        return new ScheduledStart(intendedStartNanos);
+    }
+
+    /**
+     * Record that a scheduled request has actually begun.
+     *
+     * @return the actual start time, in {@link System#nanoTime()} terms
+     */
+    public long started(ScheduledStart start, String request) {
+        long actualStartNanos = System.nanoTime();
+        long lagNanos = actualStartNanos - start.getIntendedStartNanos();
+        maxLagNanos.accumulateAndGet(lagNanos, Math::max);
+
+        if (scheduleLogger.isInfoEnabled()) {
+            scheduleLogger.info("{} {} intended={} actual={} lag={}ms",
+                    name,
+                    request,
+                    toInstant(start.getIntendedStartNanos()),
+                    toInstant(actualStartNanos),
+                    TimeUnit.NANOSECONDS.toMillis(lagNanos)
+            );
+        }
+        return actualStartNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getScheduledCount() {
+        return scheduledCount.get();
+    }
+
+    public long getMaxLagNanos() {
+        return maxLagNanos.get();
+    }
+
+    public RateSchedule getRateSchedule() {
+        return rateSchedule;
+    }
+
+    private synchronized long reserveSlot() {
+        if (!started) {
+            startNanos = System.nanoTime();
+            startEpochMillis = System.currentTimeMillis();
+            nextOffsetNanos = 0;
+            started = true;
+        }
+        long slotOffsetNanos = (long) nextOffsetNanos;
+        nextOffsetNanos += 1_000_000_000d / rateSchedule.ratePerSecond(slotOffsetNanos);
+        return startNanos + slotOffsetNanos;
+    }
+
+    private synchronized Instant toInstant(long nanoTime) {
+        return Instant.ofEpochMilli(startEpochMillis + TimeUnit.NANOSECONDS.toMillis(nanoTime - startNanos));
+    }
+}
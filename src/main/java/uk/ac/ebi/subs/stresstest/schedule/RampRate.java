@@ -0,0 +1,31 @@
+package uk.ac.ebi.subs.stresstest.schedule;
+
+/**
+ * Linear ramp from one rate to another over a fixed duration, holding the final rate afterwards.
+ */
+public class RampRate implements RateSchedule {
+
+    private final double fromPerSecond;
+    private final double toPerSecond;
+    private final long durationNanos;
+
+    public RampRate(double fromPerSecond, double toPerSecond, long durationNanos) {
+        this.fromPerSecond = fromPerSecond;
+        this.toPerSecond = toPerSecond;
+        this.durationNanos = durationNanos;
+    }
+
+    @Override
+    public double ratePerSecond(long elapsedNanos) {
+        if (elapsedNanos >= durationNanos) {
+            return toPerSecond;
+        }
+        double fraction = (double) elapsedNanos / durationNanos;
+        return fromPerSecond + (toPerSecond - fromPerSecond) * fraction;
+    }
+
+    @Override
+    public String toString() {
+        return "ramp " + fromPerSecond + "/s -> " + toPerSecond + "/s over " + durationNanos / 1_000_000_000d + "s";
+    }
+}
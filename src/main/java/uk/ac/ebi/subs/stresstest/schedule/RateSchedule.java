@@ -0,0 +1,13 @@
+package uk.ac.ebi.subs.stresstest.schedule;
+
+/**
+ * Target arrival rate for open-loop load generation, as a function of the time elapsed since the start of the run.
+ */
+public interface RateSchedule {
+
+    /**
+     * @param elapsedNanos time since the start of the run
+     * @return the target number of operations per second at that point
+     */
+    double ratePerSecond(long elapsedNanos);
+}
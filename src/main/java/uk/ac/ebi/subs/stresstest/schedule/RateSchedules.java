@@ -0,0 +1,92 @@
+package uk.ac.ebi.subs.stresstest.schedule;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses rate schedules from property values.
+ * <p>
+ * Supported forms, where the rate unit is {@code /s} (default) or {@code /min}:
+ * <ul>
+ * <li>{@code constant:100/s}</li>
+ * <li>{@code ramp:50-500/min:10m} - linear ramp from 50 to 500 per minute over 10 minutes</li>
+ * <li>{@code step:50,100,200/min:2m} - each rate held for 2 minutes</li>
+ * </ul>
+ * Durations accept the suffixes {@code ms}, {@code s}, {@code m} and {@code h}.
+ */
+public final class RateSchedules {
+
+    private RateSchedules() {
+    }
+
+    public static RateSchedule parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        String type = parts[0].toLowerCase();
+
+        switch (type) {
+            case "constant":
+                requireParts(spec, parts, 2);
+                return new ConstantRate(parseRates(parts[1])[0]);
+            case "ramp":
+                requireParts(spec, parts, 3);
+                double[] range = parseRates(parts[1].replace('-', ','));
+                if (range.length != 2) {
+                    throw new IllegalArgumentException("ramp rate needs a from-to range: " + spec);
+                }
+                return new RampRate(range[0], range[1], parseDurationNanos(parts[2]));
+            case "step":
+                requireParts(spec, parts, 3);
+                return new StepRate(parseRates(parts[1]), parseDurationNanos(parts[2]));
+            default:
+                throw new IllegalArgumentException("unknown rate schedule type '" + type + "' in " + spec);
+        }
+    }
+
+    static double[] parseRates(String rates) {
+        double divisor = 1;
+        String values = rates;
+        int unitIndex = rates.indexOf('/');
+        if (unitIndex >= 0) {
+            String unit = rates.substring(unitIndex + 1);
+            values = rates.substring(0, unitIndex);
+            if (unit.equals("min") || unit.equals("m")) {
+                divisor = 60;
+            } else if (!unit.equals("s")) {
+                throw new IllegalArgumentException("unknown rate unit '" + unit + "' in " + rates);
+            }
+        }
+
+        String[] tokens = values.split(",");
+        double[] parsed = new double[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            parsed[i] = Double.parseDouble(tokens[i].trim()) / divisor;
+            if (parsed[i] <= 0) {
+                throw new IllegalArgumentException("rates must be positive: " + rates);
+            }
+        }
+        return parsed;
+    }
+
+    public static long parseDurationNanos(String duration) {
+        String value = duration.trim();
+        if (value.endsWith("ms")) {
+            return TimeUnit.MILLISECONDS.toNanos(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        switch (value.charAt(value.length() - 1)) {
+            case 's':
+                return TimeUnit.SECONDS.toNanos(amount);
+            case 'm':
+                return TimeUnit.MINUTES.toNanos(amount);
+            case 'h':
+                return TimeUnit.HOURS.toNanos(amount);
+            default:
+                throw new IllegalArgumentException("unknown duration unit in " + duration);
+        }
+    }
+
+    private static void requireParts(String spec, String[] parts, int expected) {
+        if (parts.length != expected) {
+            throw new IllegalArgumentException("malformed rate schedule: " + spec);
+        }
+    }
+}
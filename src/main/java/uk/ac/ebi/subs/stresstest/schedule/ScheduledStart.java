@@ -0,0 +1,46 @@
+package uk.ac.ebi.subs.stresstest.schedule;
+
+/**
+ * The time at which a request was meant to start. Latency measured from the intended start, rather than from when the
+ * request was actually issued, includes any time spent queued behind a slow server (no coordinated omission).
+ */
+public class ScheduledStart {
+
+    private final long intendedStartNanos;
+    private final boolean openLoop;
+
+    public ScheduledStart(long intendedStartNanos) {
+        this(intendedStartNanos, true);
+    }
+
+    private ScheduledStart(long intendedStartNanos, boolean openLoop) {
+        this.intendedStartNanos = intendedStartNanos;
+        this.openLoop = openLoop;
+    }
+
+    /**
+     * For closed-loop work, where a request is intended to start whenever it is issued.
+     */
+    public static ScheduledStart now() {
+        return new ScheduledStart(System.nanoTime(), false);
+    }
+
+    public long getIntendedStartNanos() {
+        return intendedStartNanos;
+    }
+
+    /**
+     * @return true if the start was handed out by an open-loop schedule, false for closed-loop work
+     */
+    public boolean isOpenLoop() {
+        return openLoop;
+    }
+
+    /**
+     * Where to time a request from that is issued now, after other work done since the start: the intended start for
+     * open-loop work, so that the time queued behind that work counts, otherwise now.
+     */
+    public long requestStartNanos() {
+        return openLoop ? intendedStartNanos : System.nanoTime();
+    }
+}
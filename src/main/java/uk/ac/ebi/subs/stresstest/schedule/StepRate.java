@@ -0,0 +1,31 @@
+package uk.ac.ebi.subs.stresstest.schedule;
+
+import java.util.Arrays;
+
+/**
+ * Sequence of constant rates, each held for the same step duration. The last rate is held once the steps run out.
+ */
+public class StepRate implements RateSchedule {
+
+    private final double[] stepsPerSecond;
+    private final long stepDurationNanos;
+
+    public StepRate(double[] stepsPerSecond, long stepDurationNanos) {
+        if (stepsPerSecond.length == 0) {
+            throw new IllegalArgumentException("step rate needs at least one step");
+        }
+        this.stepsPerSecond = stepsPerSecond.clone();
+        this.stepDurationNanos = stepDurationNanos;
+    }
+
+    @Override
+    public double ratePerSecond(long elapsedNanos) {
+        long step = elapsedNanos / stepDurationNanos;
+        return stepsPerSecond[(int) Math.min(step, stepsPerSecond.length - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return "step " + Arrays.toString(stepsPerSecond) + "/s every " + stepDurationNanos / 1_000_000_000d + "s";
+    }
+}
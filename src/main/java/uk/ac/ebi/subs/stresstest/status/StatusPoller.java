@@ -0,0 +1,176 @@
+package uk.ac.ebi.subs.stresstest.status;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.subs.stresstest.auth.AapTokenManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls for conditions on the server, such as a submission becoming submittable, without a thread sleeping per
+ * submission.
+ * <p>
+ * A single timer picks the checks that are due, up to a batch size per tick, and runs them on a small pool. A check
+ * that is not yet satisfied is retried after the poll interval, which grows by the backoff multiplier on each attempt
+ * up to a maximum, until the timeout or the maximum number of attempts is reached. Slow checks can be given their own
+ * executor, so they don't hold up the others.
+ * <p>
+ * Checks, and anything chained on the returned future, run with the AAP identity of the thread that asked for the
+ * poll.
+ */
+@Component
+public class StatusPoller {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatusPoller.class);
+
+    @Value("${status.tickMs:50}")
+    long tickMs;
+    @Value("${status.pollIntervalMs:500}")
+    long pollIntervalMs;
+    @Value("${status.maxPollIntervalMs:5000}")
+    long maxPollIntervalMs;
+    @Value("${status.backoffMultiplier:1.5}")
+    double backoffMultiplier;
+    @Value("${status.timeoutSeconds:30}")
+    long timeoutSeconds;
+    @Value("${status.maxAttempts:60}")
+    int maxAttempts;
+    @Value("${status.batchSize:50}")
+    int batchSize;
+    @Value("${status.checkThreads:4}")
+    int checkThreads;
+
+    @Autowired
+    AapTokenManager tokenManager;
+
+    private final PriorityBlockingQueue<PollEntry> due = new PriorityBlockingQueue<>();
+
+    private ScheduledExecutorService timer;
+    private ExecutorService checkExecutor;
+
+    @PostConstruct
+    void start() {
+        CustomizableThreadFactory timerThreadFactory = new CustomizableThreadFactory("status-timer-");
+        timerThreadFactory.setDaemon(true);
+        timer = Executors.newSingleThreadScheduledExecutor(timerThreadFactory);
+
+        CustomizableThreadFactory checkThreadFactory = new CustomizableThreadFactory("status-check-");
+        checkThreadFactory.setDaemon(true);
+        checkExecutor = Executors.newFixedThreadPool(checkThreads, checkThreadFactory);
+
+        timer.scheduleWithFixedDelay(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        timer.shutdownNow();
+        checkExecutor.shutdownNow();
+    }
+
+    /**
+     * Poll until the check returns true, using the configured timeout.
+     *
+     * @return completes with true once the check is satisfied, or false if it timed out
+     */
+    public CompletableFuture<Boolean> poll(String description, Callable<Boolean> check) {
+        return poll(description, check, TimeUnit.SECONDS.toNanos(timeoutSeconds), maxAttempts);
+    }
+
+    public CompletableFuture<Boolean> poll(String description, Callable<Boolean> check, long timeoutNanos, int maxAttempts) {
+        return poll(description, check, timeoutNanos, maxAttempts, checkExecutor);
+    }
+
+    /**
+     * @param executor runs the checks instead of the shared check threads
+     */
+    public CompletableFuture<Boolean> poll(String description, Callable<Boolean> check, long timeoutNanos, int maxAttempts,
+                                           Executor executor) {
+        PollEntry entry = new PollEntry(description, check, System.nanoTime() + timeoutNanos, maxAttempts,
+                tokenManager.currentIdentity(), executor);
+        due.add(entry);
+        return entry.result;
+    }
+
+    public int getPendingCount() {
+        return due.size();
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        for (int i = 0; i < batchSize; i++) {
+            PollEntry next = due.peek();
+            if (next == null || next.nextCheckNanos > now) {
+                return;
+            }
+            PollEntry entry = due.poll();
+            if (entry != null) {
+                entry.executor.execute(tokenManager.bind(entry.identity, () -> check(entry)));
+            }
+        }
+    }
+
+    private void check(PollEntry entry) {
+        entry.attempts++;
+        boolean satisfied = false;
+        try {
+            satisfied = entry.check.call();
+        } catch (Exception e) {
+            logger.debug("Check for {} failed on attempt {}, may retry", entry.description, entry.attempts, e);
+        }
+
+        long now = System.nanoTime();
+        if (satisfied) {
+            entry.result.complete(true);
+        } else if (now >= entry.deadlineNanos || entry.attempts >= entry.maxAttempts) {
+            logger.info("Gave up waiting for {} after {} attempts and {}s",
+                    entry.description, entry.attempts, (now - entry.startNanos) / 1_000_000_000d);
+            entry.result.complete(false);
+        } else {
+            double intervalMs = Math.min(pollIntervalMs * Math.pow(backoffMultiplier, entry.attempts - 1), maxPollIntervalMs);
+            entry.nextCheckNanos = now + (long) (intervalMs * 1_000_000);
+            due.add(entry);
+        }
+    }
+
+    private static class PollEntry implements Comparable<PollEntry> {
+        private final String description;
+        private final Callable<Boolean> check;
+        private final long startNanos = System.nanoTime();
+        private final long deadlineNanos;
+        private final int maxAttempts;
+        private final int identity;
+        private final Executor executor;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private volatile long nextCheckNanos = startNanos;
+        private volatile int attempts = 0;
+
+        private PollEntry(String description, Callable<Boolean> check, long deadlineNanos, int maxAttempts, int identity,
+                          Executor executor) {
+            this.description = description;
+            this.check = check;
+            this.deadlineNanos = deadlineNanos;
+            this.maxAttempts = maxAttempts;
+            this.identity = identity;
+            this.executor = executor;
+        }
+
+        @Override
+        public int compareTo(PollEntry other) {
+            return Long.compare(nextCheckNanos, other.nextCheckNanos);
+        }
+    }
+}
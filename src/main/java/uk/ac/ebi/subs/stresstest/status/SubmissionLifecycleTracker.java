@@ -0,0 +1,211 @@
+package uk.ac.ebi.subs.stresstest.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+import uk.ac.ebi.subs.stresstest.metrics.LatencyMetrics;
+import uk.ac.ebi.subs.stresstest.metrics.Operations;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Follows submitted submissions through backend processing until they reach a terminal status, so that a run measures
+ * the whole pipeline rather than only the ingest endpoints.
+ * <p>
+ * Each tracked submission is checked through the shared {@link StatusPoller}, on a pool of its own so that long scans
+ * don't delay the other status checks: the submission status is read, along with a page-by-page scan of the
+ * processing statuses of its items. A scan stops as soon as every item is known to be processed, and once they all
+ * are, only the submission status is read. Completion times are measured from the moment the status was set to
+ * Submitted until a terminal status is first seen, so their resolution is bounded by the poll interval.
+ */
+@Component
+public class SubmissionLifecycleTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionLifecycleTracker.class);
+
+    @Value("${tracking.enabled:false}")
+    boolean enabled;
+    @Value("${tracking.timeoutSeconds:3600}")
+    long timeoutSeconds;
+    @Value("${tracking.pageSize:500}")
+    int pageSize;
+    @Value("${tracking.checkThreads:2}")
+    int checkThreads;
+    @Value("${tracking.terminalSubmissionStatuses:Completed,Failed}")
+    String[] terminalSubmissionStatuses;
+    @Value("${tracking.terminalItemStatuses:Completed,Done,Error,Rejected}")
+    String[] terminalItemStatuses;
+
+    @Autowired
+    RestTemplate restTemplate;
+    @Autowired
+    LatencyMetrics latencyMetrics;
+    @Autowired
+    StatusPoller statusPoller;
+
+    private final LongAdder processedSubmissions = new LongAdder();
+    private final LongAdder processedItems = new LongAdder();
+    private final AtomicLong firstItemProcessedNanos = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong lastItemProcessedNanos = new AtomicLong(Long.MIN_VALUE);
+
+    private ExecutorService checkExecutor;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("tracking-check-");
+        threadFactory.setDaemon(true);
+        checkExecutor = Executors.newFixedThreadPool(checkThreads, threadFactory);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (checkExecutor != null) {
+            checkExecutor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start tracking a submission whose status has just been set to Submitted.
+     *
+     * @param processingStatusesHref the submission's processing statuses collection, or null to only follow the
+     *                               submission status
+     * @return completes when the submission reaches a terminal status, or tracking times out
+     */
+    public CompletableFuture<Void> track(URI submissionLocation, String submissionStatusHref, String processingStatusesHref) {
+        TrackedSubmission tracked = new TrackedSubmission(submissionStatusHref, processingStatusesHref);
+
+        return statusPoller.poll("processing of " + submissionLocation, tracked::check,
+                TimeUnit.SECONDS.toNanos(timeoutSeconds), Integer.MAX_VALUE, checkExecutor
+        ).thenAccept(processed -> {
+            if (processed) {
+                processedSubmissions.increment();
+                latencyMetrics.recordSince(Operations.SUBMISSION_TIME_TO_PROCESSED, tracked.submittedNanos);
+                logger.info("Submission {} processed, {} items", submissionLocation, tracked.processedItemIds.size());
+            } else {
+                logger.warn("Submission {} not processed after {}s, {} items processed",
+                        submissionLocation, timeoutSeconds, tracked.processedItemIds.size());
+            }
+        });
+    }
+
+    public void report() {
+        if (!enabled) return;
+
+        long items = processedItems.sum();
+        double windowSeconds = (lastItemProcessedNanos.get() - firstItemProcessedNanos.get()) / 1_000_000_000d;
+        logger.info("Processing: {} submissions and {} items reached a terminal status; sustained {} items/s over {}s",
+                processedSubmissions.sum(),
+                items,
+                windowSeconds > 0 ? String.format(Locale.ROOT, "%.1f", items / windowSeconds) : "n/a",
+                windowSeconds > 0 ? String.format(Locale.ROOT, "%.1f", windowSeconds) : "n/a"
+        );
+    }
+
+    private boolean isTerminal(String status, String[] terminalStatuses) {
+        return status != null && Arrays.asList(terminalStatuses).contains(status);
+    }
+
+    private class TrackedSubmission {
+        private final String submissionStatusHref;
+        private final String processingStatusesHref;
+        private final long submittedNanos = System.nanoTime();
+        private final Set<String> processedItemIds = new HashSet<>();
+        private long itemCount = -1;
+
+        private TrackedSubmission(String submissionStatusHref, String processingStatusesHref) {
+            this.submissionStatusHref = submissionStatusHref;
+            this.processingStatusesHref = processingStatusesHref;
+        }
+
+        /**
+         * Only ever called by one poller thread at a time for a given submission.
+         */
+        private boolean check() {
+            boolean itemsDone = processingStatusesHref == null || scanItems();
+
+            JsonNode submissionStatus = restTemplate.getForObject(submissionStatusHref, JsonNode.class);
+            String status = submissionStatus.path("status").asText(null);
+            return itemsDone && isTerminal(status, terminalSubmissionStatuses);
+        }
+
+        /**
+         * @return true if every item has reached a terminal status
+         */
+        private boolean scanItems() {
+            if (allItemsProcessed()) return true;
+
+            boolean allTerminal = true;
+            int totalPages = 1;
+
+            for (int page = 0; page < totalPages; page++) {
+                URI pageUri = UriComponentsBuilder.fromHttpUrl(processingStatusesHref)
+                        .replaceQueryParam("page", page)
+                        .replaceQueryParam("size", pageSize)
+                        .build().toUri();
+                JsonNode response = restTemplate.getForObject(pageUri, JsonNode.class);
+                totalPages = response.path("page").path("totalPages").asInt(1);
+                itemCount = response.path("page").path("totalElements").asLong(-1);
+
+                Iterator<JsonNode> collections = response.path("_embedded").elements();
+                while (collections.hasNext()) {
+                    for (JsonNode itemStatus : collections.next()) {
+                        if (isTerminal(itemStatus.path("status").asText(null), terminalItemStatuses)) {
+                            itemProcessed(itemId(itemStatus));
+                        } else {
+                            allTerminal = false;
+                        }
+                    }
+                }
+                if (allItemsProcessed()) return true;
+            }
+            return allTerminal;
+        }
+
+        /**
+         * @return true if the page metadata gave the number of items, and that many have been seen processed
+         */
+        private boolean allItemsProcessed() {
+            return itemCount >= 0 && processedItemIds.size() >= itemCount;
+        }
+
+        private void itemProcessed(String itemId) {
+            if (processedItemIds.add(itemId)) {
+                long now = System.nanoTime();
+                latencyMetrics.record(Operations.ITEM_TIME_TO_PROCESSED, now - submittedNanos);
+                processedItems.increment();
+                firstItemProcessedNanos.accumulateAndGet(now, Math::min);
+                lastItemProcessedNanos.accumulateAndGet(now, Math::max);
+            }
+        }
+
+        private String itemId(JsonNode itemStatus) {
+            JsonNode id = itemStatus.path("id");
+            return id.isMissingNode() ? itemStatus.path("_links").path("self").path("href").asText() : id.asText();
+        }
+    }
+}
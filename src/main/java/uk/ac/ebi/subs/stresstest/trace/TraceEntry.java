@@ -0,0 +1,106 @@
+package uk.ac.ebi.subs.stresstest.trace;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One HTTP exchange in a trace file. Field names are kept short, as a trace has a line per request.
+ * <p>
+ * URIs and locations are stored relative to the API host, and the API base URL inside bodies is replaced by
+ * {@link TraceRecorder#BASE_URL_PLACEHOLDER}, so a trace can be replayed against a different host.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TraceEntry {
+
+    /** Start of the request, in nanoseconds since the start of the recording. */
+    @JsonProperty("t")
+    private long offsetNanos;
+    @JsonProperty("d")
+    private long durationNanos;
+    @JsonProperty("m")
+    private String method;
+    @JsonProperty("u")
+    private String uri;
+    @JsonProperty("tpl")
+    private String uriTemplate;
+    @JsonProperty("s")
+    private int status;
+    @JsonProperty("loc")
+    private String location;
+    @JsonProperty("h")
+    private String bodyHash;
+    @JsonProperty("b")
+    private String body;
+
+    public long getOffsetNanos() {
+        return offsetNanos;
+    }
+
+    public void setOffsetNanos(long offsetNanos) {
+        this.offsetNanos = offsetNanos;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public void setDurationNanos(long durationNanos) {
+        this.durationNanos = durationNanos;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public void setUri(String uri) {
+        this.uri = uri;
+    }
+
+    public String getUriTemplate() {
+        return uriTemplate;
+    }
+
+    public void setUriTemplate(String uriTemplate) {
+        this.uriTemplate = uriTemplate;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public String getBodyHash() {
+        return bodyHash;
+    }
+
+    public void setBodyHash(String bodyHash) {
+        this.bodyHash = bodyHash;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+}
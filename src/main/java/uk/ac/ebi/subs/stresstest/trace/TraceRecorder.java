@@ -0,0 +1,200 @@
+package uk.ac.ebi.subs.stresstest.trace;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Appends every HTTP exchange made against the API to a JSON lines trace file, when {@code trace.file} is set.
+ * <p>
+ * Entries are handed to a single writer thread through a queue, so request threads never wait on the file. The file
+ * stays open for the life of the application, so the runs made in one JVM, e.g. by a worker, go to the same trace;
+ * each run ends with {@link #flush()}. Once the writer has stopped, nothing more is recorded.
+ */
+@Component
+public class TraceRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(TraceRecorder.class);
+
+    public static final String BASE_URL_PLACEHOLDER = "{base}";
+
+    private static final Pattern ID_SEGMENT = Pattern.compile(
+            "/([0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}|[0-9]+)(?=/|$|\\?)");
+
+    private static final TraceEntry END_OF_TRACE = new TraceEntry();
+
+    @Value("${trace.file:}")
+    String traceFile;
+    @Value("${trace.includeBodies:true}")
+    boolean includeBodies;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final BlockingQueue<TraceEntry> queue = new LinkedBlockingQueue<>();
+    private final long startNanos = System.nanoTime();
+
+    private Thread writerThread;
+    private volatile boolean writing;
+
+    public boolean isEnabled() {
+        return !traceFile.isEmpty();
+    }
+
+    @PostConstruct
+    void start() {
+        if (!isEnabled()) return;
+
+        Path path = Paths.get(traceFile);
+        writerThread = new Thread(() -> writeEntries(path), "trace-writer");
+        writerThread.setDaemon(true);
+        writing = true;
+        writerThread.start();
+        logger.info("Recording request trace to {}", path.toAbsolutePath());
+    }
+
+    /**
+     * Record an exchange.
+     *
+     * @param startNanos start of the request, in {@link System#nanoTime()} terms
+     * @param location   the response Location header, if any
+     */
+    public void record(long startNanos, long durationNanos, String method, URI uri, int status, URI location, byte[] body) {
+        record(startNanos, durationNanos, method, uri, status, location, body, body == null ? 0 : body.length);
+    }
+
+    /**
+     * Record an exchange whose body is the first {@code length} bytes of {@code body}, such as a pooled buffer.
+     */
+    public void record(long startNanos, long durationNanos, String method, URI uri, int status, URI location,
+                       byte[] body, int length) {
+        if (!writing) return;
+
+        String baseUrl = baseUrl(uri);
+
+        TraceEntry entry = new TraceEntry();
+        entry.setOffsetNanos(startNanos - this.startNanos);
+        entry.setDurationNanos(durationNanos);
+        entry.setMethod(method);
+        entry.setUri(relative(uri));
+        entry.setUriTemplate(uriTemplate(entry.getUri()));
+        entry.setStatus(status);
+        if (location != null) {
+            entry.setLocation(relative(location));
+        }
+        if (body != null && length > 0) {
+            CRC32 crc = new CRC32();
+            crc.update(body, 0, length);
+            entry.setBodyHash(Long.toHexString(crc.getValue()));
+            if (includeBodies) {
+                entry.setBody(new String(body, 0, length, StandardCharsets.UTF_8).replace(baseUrl, BASE_URL_PLACEHOLDER));
+            }
+        }
+        queue.add(entry);
+    }
+
+    /**
+     * Wait until everything recorded so far is written to the trace file.
+     */
+    public void flush() {
+        if (!writing) return;
+
+        Flush flush = new Flush();
+        queue.add(flush);
+        try {
+            // stop waiting if the writer stops on an error
+            while (writing) {
+                if (flush.done.await(100, TimeUnit.MILLISECONDS)) return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Write out everything recorded so far and close the trace file.
+     */
+    @PreDestroy
+    public void close() {
+        if (writerThread == null) return;
+
+        queue.add(END_OF_TRACE);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+    }
+
+    /**
+     * Template of a relative URI, with id path segments replaced by {id}, for grouping requests by endpoint.
+     */
+    public static String uriTemplate(String relativeUri) {
+        String path = relativeUri.contains("?") ? relativeUri.substring(0, relativeUri.indexOf('?')) : relativeUri;
+        return ID_SEGMENT.matcher(path).replaceAll("/{id}");
+    }
+
+    static String baseUrl(URI uri) {
+        return uri.getScheme() + "://" + uri.getRawAuthority();
+    }
+
+    private static String relative(URI uri) {
+        return uri.getRawQuery() == null ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery();
+    }
+
+    private void writeEntries(Path path) {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            List<TraceEntry> batch = new ArrayList<>();
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (TraceEntry entry : batch) {
+                    if (entry == END_OF_TRACE) {
+                        return;
+                    }
+                    if (entry instanceof Flush) {
+                        writer.flush();
+                        ((Flush) entry).done.countDown();
+                        continue;
+                    }
+                    writer.write(mapper.writeValueAsString(entry));
+                    writer.newLine();
+                }
+                batch.clear();
+                writer.flush();
+            }
+        } catch (IOException e) {
+            logger.error("Failed to write trace to {}", path, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            writing = false;
+            queue.clear();
+        }
+    }
+
+    private static final class Flush extends TraceEntry {
+        private final CountDownLatch done = new CountDownLatch(1);
+    }
+}
@@ -0,0 +1,192 @@
+package uk.ac.ebi.subs.stresstest.trace;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.subs.stresstest.execution.ExecutionEngine;
+import uk.ac.ebi.subs.stresstest.execution.InFlightTracker;
+import uk.ac.ebi.subs.stresstest.metrics.LatencyMetrics;
+import uk.ac.ebi.subs.stresstest.metrics.Operations;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Re-issues a recorded trace against the configured API, keeping the original inter-arrival times divided by
+ * {@code replay.speed}. Latency is measured from each request's intended start and recorded per method and URI
+ * template.
+ * <p>
+ * Resources created during the replay get new ids. The id in each recorded Location header is mapped to the id
+ * returned by the replay, and later URIs and bodies that mention it are rewritten, waiting for the create to
+ * complete if need be.
+ */
+@Component
+public class TraceReplayer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TraceReplayer.class);
+
+    private static final Pattern ID = Pattern.compile(
+            "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    @Value("${replay.speed:1.0}")
+    double speed;
+    @Value("${host:localhost}")
+    String host;
+    @Value("${port:8080}")
+    Integer port;
+    @Value("${protocol:http}")
+    String protocol;
+
+    @Autowired
+    RestTemplate restTemplate;
+    @Autowired
+    LatencyMetrics latencyMetrics;
+    @Autowired
+    ExecutionEngine executionEngine;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder statusMismatches = new LongAdder();
+    private boolean warnedAboutMissingBodies = false;
+
+    public void replay(Path traceFile) {
+        String baseUrl = protocol + "://" + host + ":" + port;
+        logger.info("Replaying {} against {} at {}x speed", traceFile.toAbsolutePath(), baseUrl, speed);
+
+        Map<String, CompletableFuture<String>> createdIds = new ConcurrentHashMap<>();
+        InFlightTracker inFlight = new InFlightTracker();
+        long replayStartNanos = System.nanoTime();
+        long count = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(traceFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+
+                TraceEntry entry = mapper.readValue(line, TraceEntry.class);
+                warnIfBodyMissing(entry);
+
+                CompletableFuture<String> created = null;
+                if (entry.getLocation() != null) {
+                    created = new CompletableFuture<>();
+                    createdIds.put(lastSegment(entry.getLocation()), created);
+                }
+
+                long intendedStartNanos = replayStartNanos + (long) (entry.getOffsetNanos() / speed);
+                long waitNanos;
+                while ((waitNanos = intendedStartNanos - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(waitNanos);
+                }
+
+                CompletableFuture<String> createdId = created;
+                inFlight.track(executionEngine.submitItem(
+                        () -> replayEntry(entry, intendedStartNanos, baseUrl, createdIds, createdId)
+                ));
+                count++;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        inFlight.await();
+        logger.info("Replayed {} requests: {} errors, {} with a different status from the recording",
+                count, errors.sum(), statusMismatches.sum());
+        latencyMetrics.report();
+    }
+
+    private void replayEntry(TraceEntry entry, long intendedStartNanos, String baseUrl,
+                             Map<String, CompletableFuture<String>> createdIds, CompletableFuture<String> createdId) {
+        URI uri = URI.create(baseUrl + remapIds(entry.getUri(), createdIds));
+        String body = entry.getBody() == null
+                ? null
+                : remapIds(entry.getBody().replace(TraceRecorder.BASE_URL_PLACEHOLDER, baseUrl), createdIds);
+
+        HttpHeaders headers = new HttpHeaders();
+        if (body != null) {
+            headers.setContentType(MediaType.APPLICATION_JSON);
+        }
+
+        int status;
+        URI location = null;
+        try {
+            ResponseEntity<String> response = restTemplate.exchange(uri, HttpMethod.valueOf(entry.getMethod()),
+                    new HttpEntity<>(body, headers), String.class);
+            status = response.getStatusCodeValue();
+            location = response.getHeaders().getLocation();
+        } catch (HttpStatusCodeException e) {
+            status = e.getRawStatusCode();
+            errors.increment();
+        } catch (RestClientException e) {
+            status = 0;
+            errors.increment();
+            logger.debug("{} {} failed", entry.getMethod(), uri, e);
+        } finally {
+            latencyMetrics.recordSince(Operations.replay(entry.getMethod(), entry.getUriTemplate()), intendedStartNanos);
+            if (createdId != null) {
+                createdId.complete(location == null ? null : lastSegment(location.getRawPath()));
+            }
+        }
+
+        if (status != entry.getStatus()) {
+            statusMismatches.increment();
+        }
+    }
+
+    /**
+     * Replace ids of resources created earlier in the trace with the ids they were given in this replay.
+     */
+    private String remapIds(String text, Map<String, CompletableFuture<String>> createdIds) {
+        Matcher matcher = ID.matcher(text);
+        StringBuffer remapped = null;
+        while (matcher.find()) {
+            CompletableFuture<String> created = createdIds.get(matcher.group());
+            String newId = created == null ? null : created.join();
+            if (newId != null) {
+                if (remapped == null) {
+                    remapped = new StringBuffer(text.length());
+                }
+                matcher.appendReplacement(remapped, Matcher.quoteReplacement(newId));
+            }
+        }
+        if (remapped == null) {
+            return text;
+        }
+        matcher.appendTail(remapped);
+        return remapped.toString();
+    }
+
+    private synchronized void warnIfBodyMissing(TraceEntry entry) {
+        if (!warnedAboutMissingBodies && entry.getBody() == null && entry.getBodyHash() != null) {
+            logger.warn("The trace has body hashes but no bodies (trace.includeBodies=false); requests will be replayed without bodies");
+            warnedAboutMissingBodies = true;
+        }
+    }
+
+    private static String lastSegment(String path) {
+        String trimmed = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        return trimmed.substring(trimmed.lastIndexOf('/') + 1);
+    }
+}
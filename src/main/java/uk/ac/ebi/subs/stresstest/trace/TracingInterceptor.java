@@ -0,0 +1,43 @@
+package uk.ac.ebi.subs.stresstest.trace;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Records each exchange made through a rest template with the {@link TraceRecorder}.
+ */
+public class TracingInterceptor implements ClientHttpRequestInterceptor {
+
+    private final TraceRecorder traceRecorder;
+
+    public TracingInterceptor(TraceRecorder traceRecorder) {
+        this.traceRecorder = traceRecorder;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        long startNanos = System.nanoTime();
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException e) {
+            traceRecorder.record(startNanos, System.nanoTime() - startNanos, request.getMethod().name(),
+                    request.getURI(), 0, null, body);
+            throw e;
+        }
+        traceRecorder.record(
+                startNanos,
+                System.nanoTime() - startNanos,
+                request.getMethod().name(),
+                request.getURI(),
+                response.getRawStatusCode(),
+                response.getHeaders().getLocation(),
+                body
+        );
+        return response;
+    }
+}
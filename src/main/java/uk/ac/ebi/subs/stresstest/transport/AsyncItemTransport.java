@@ -0,0 +1,121 @@
+package uk.ac.ebi.subs.stresstest.transport;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.apache.http.util.EntityUtils;
+import uk.ac.ebi.subs.stresstest.payload.PayloadBuffer;
+import uk.ac.ebi.subs.stresstest.payload.PayloadBufferPool;
+import uk.ac.ebi.subs.stresstest.trace.TraceRecorder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Posts items over a non-blocking HTTP client, so that the number of requests in flight is not tied to the number of
+ * threads. Callbacks run on the client's I/O reactor threads, so anything chained on the returned futures must not
+ * block.
+ */
+public class AsyncItemTransport implements Closeable {
+
+    private final CloseableHttpAsyncClient client;
+    private final ObjectMapper mapper;
+    private final TraceRecorder traceRecorder;
+    private final Supplier<String> authorization;
+
+    /**
+     * @param authorization supplies the Authorization header for each request, on the thread making the request
+     */
+    public AsyncItemTransport(CloseableHttpAsyncClient client, ObjectMapper mapper, TraceRecorder traceRecorder, Supplier<String> authorization) {
+        this.client = client;
+        this.mapper = mapper;
+        this.traceRecorder = traceRecorder;
+        this.authorization = authorization;
+        this.client.start();
+    }
+
+    public CompletableFuture<ItemResponse> post(String uri, Object item) {
+        byte[] body;
+        try {
+            body = mapper.writeValueAsBytes(item);
+        } catch (JsonProcessingException e) {
+            CompletableFuture<ItemResponse> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return execute(uri, body, body.length, () -> {
+        });
+    }
+
+    /**
+     * Post a body that has already been written to a pooled buffer. The buffer is released to the pool once the
+     * exchange is over.
+     */
+    public CompletableFuture<ItemResponse> post(String uri, PayloadBuffer body, PayloadBufferPool pool) {
+        return execute(uri, body.array(), body.size(), () -> pool.release(body));
+    }
+
+    private CompletableFuture<ItemResponse> execute(String uri, byte[] body, int length, Runnable whenDone) {
+        HttpPost post = new HttpPost(uri);
+        post.setHeader(HttpHeaders.AUTHORIZATION, authorization.get());
+        post.setEntity(new NByteArrayEntity(body, 0, length, ContentType.APPLICATION_JSON));
+
+        CompletableFuture<ItemResponse> response = new CompletableFuture<>();
+        long startNanos = System.nanoTime();
+        client.execute(post, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse httpResponse) {
+                try {
+                    Header locationHeader = httpResponse.getFirstHeader(HttpHeaders.LOCATION);
+                    URI location = locationHeader == null ? null : URI.create(locationHeader.getValue());
+                    int statusCode = httpResponse.getStatusLine().getStatusCode();
+                    trace(statusCode, location);
+
+                    String responseBody = httpResponse.getEntity() == null ? null : EntityUtils.toString(httpResponse.getEntity());
+                    response.complete(new ItemResponse(statusCode, location, responseBody));
+                } catch (IOException | RuntimeException e) {
+                    response.completeExceptionally(e);
+                } finally {
+                    whenDone.run();
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                trace(0, null);
+                whenDone.run();
+                response.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                whenDone.run();
+                response.completeExceptionally(new CancellationException("POST to " + uri + " was cancelled"));
+            }
+
+            private void trace(int statusCode, URI location) {
+                if (traceRecorder.isEnabled()) {
+                    traceRecorder.record(startNanos, System.nanoTime() - startNanos, "POST", post.getURI(), statusCode,
+                            location, body, length);
+                }
+            }
+        });
+        return response;
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+}
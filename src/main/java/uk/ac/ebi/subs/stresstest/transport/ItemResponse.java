@@ -0,0 +1,40 @@
+package uk.ac.ebi.subs.stresstest.transport;
+
+import java.net.URI;
+
+/**
+ * The parts of an item POST response that the stress tester looks at.
+ */
+public class ItemResponse {
+
+    private final int statusCode;
+    private final URI location;
+    private final String body;
+
+    public ItemResponse(int statusCode, URI location, String body) {
+        this.statusCode = statusCode;
+        this.location = location;
+        this.body = body;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public URI getLocation() {
+        return location;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemResponse{" +
+                "statusCode=" + statusCode +
+                ", location=" + location +
+                ", body='" + body + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,51 @@
+package uk.ac.ebi.subs.stresstest;
+
+import org.junit.Test;
+import uk.ac.ebi.subs.data.client.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DependencyWavesTest {
+
+    @Test
+    public void typesThatReferenceNothingAreInTheFirstWave() {
+        assertEquals(0, DependencyWaves.wave(Project.class));
+        assertEquals(0, DependencyWaves.wave(Sample.class));
+        assertEquals(0, DependencyWaves.wave(Protocol.class));
+        assertEquals(0, DependencyWaves.wave(EgaDac.class));
+    }
+
+    @Test
+    public void everyTypeComesAfterTheTypesItReferences() {
+        assertAfter(Study.class, Project.class);
+        assertAfter(SampleGroup.class, Sample.class);
+        assertAfter(Assay.class, Study.class);
+        assertAfter(Assay.class, Sample.class);
+        assertAfter(AssayData.class, Assay.class);
+        assertAfter(Analysis.class, Study.class);
+        assertAfter(Analysis.class, Sample.class);
+        assertAfter(EgaDacPolicy.class, EgaDac.class);
+        assertAfter(EgaDataset.class, EgaDacPolicy.class);
+        assertAfter(EgaDataset.class, AssayData.class);
+        assertAfter(EgaDataset.class, Analysis.class);
+    }
+
+    @Test
+    public void typeIsOneWaveAfterTheLatestTypeItReferences() {
+        assertEquals(1, DependencyWaves.wave(Study.class));
+        assertEquals(2, DependencyWaves.wave(Assay.class));
+        assertEquals(3, DependencyWaves.wave(AssayData.class));
+        assertEquals(4, DependencyWaves.wave(EgaDataset.class));
+    }
+
+    @Test
+    public void unknownTypesAreInTheFirstWave() {
+        assertEquals(0, DependencyWaves.wave(String.class));
+    }
+
+    private static void assertAfter(Class type, Class referenced) {
+        assertTrue(type.getSimpleName() + " should come after " + referenced.getSimpleName(),
+                DependencyWaves.wave(type) > DependencyWaves.wave(referenced));
+    }
+}
@@ -0,0 +1,136 @@
+package uk.ac.ebi.subs.stresstest;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.subs.data.client.Assay;
+import uk.ac.ebi.subs.data.client.Sample;
+import uk.ac.ebi.subs.data.client.Study;
+import uk.ac.ebi.subs.stresstest.metrics.LatencyMetrics;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.springframework.test.web.client.ExpectedCount.times;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class ItemTypeRouterTest {
+
+    private static final String SUBMISSION = "http://localhost:8080/api/submissions/8f2c";
+
+    @Rule
+    public TemporaryFolder metricsDir = new TemporaryFolder();
+
+    private ItemTypeRouter router;
+    private MockRestServiceServer api;
+
+    @Before
+    public void setUp() {
+        LatencyMetrics latencyMetrics = new LatencyMetrics();
+        ReflectionTestUtils.setField(latencyMetrics, "metricsDir", metricsDir.getRoot().toString());
+
+        RestTemplate restTemplate = new RestTemplate();
+        api = MockRestServiceServer.bindTo(restTemplate).build();
+
+        router = new ItemTypeRouter();
+        router.relOverrides = new String[]{"Study=studies"};
+        router.cacheRoutes = true;
+        router.restTemplate = restTemplate;
+        router.latencyMetrics = latencyMetrics;
+        router.linkCache = new LinkCache(100, TimeUnit.HOURS.toNanos(1));
+        router.registerTypes();
+    }
+
+    @Test
+    public void templateReplacesOnlyTheSubmissionIdSegment() {
+        assertEquals("http://8f2c.example.org/api/submissions/{submissionId}/contents/samples?tag=8f2c",
+                ItemTypeRouter.routeTemplate("http://8f2c.example.org/api/submissions/8f2c/contents/samples?tag=8f2c",
+                        "http://8f2c.example.org/api/submissions/8f2c"));
+    }
+
+    @Test
+    public void templateKeepsATrailingSlash() {
+        assertEquals("http://localhost:8080/api/submissions/{submissionId}/contents/samples/",
+                ItemTypeRouter.routeTemplate(SUBMISSION + "/contents/samples/", SUBMISSION + "/"));
+    }
+
+    @Test
+    public void templateFindsTheIdUnderAnotherPath() {
+        assertEquals("http://localhost:8080/api/v2/drafts/{submissionId}/samples",
+                ItemTypeRouter.routeTemplate("http://localhost:8080/api/v2/drafts/8f2c/samples", SUBMISSION));
+    }
+
+    @Test
+    public void linkWithoutTheIdIsKeptAsItIs() {
+        assertEquals("http://localhost:8080/api/samples",
+                ItemTypeRouter.routeTemplate("http://localhost:8080/api/samples", SUBMISSION));
+    }
+
+    @Test
+    public void submissionIdIsTheLastSegment() {
+        assertEquals("8f2c", ItemTypeRouter.submissionId(SUBMISSION));
+        assertEquals("8f2c", ItemTypeRouter.submissionId(SUBMISSION + "/"));
+    }
+
+    @Test
+    public void contentsAreReadOnceAndRoutesFilledInPerSubmission() {
+        expectContents(1);
+
+        Map<Class, String> first = router.routes(SUBMISSION);
+        Map<Class, String> second = router.routes("http://localhost:8080/api/submissions/a71d");
+
+        api.verify();
+        assertEquals(SUBMISSION + "/contents/samples", first.get(Sample.class));
+        assertEquals("http://localhost:8080/api/submissions/a71d/contents/studies", second.get(Study.class));
+        assertEquals(1, router.linkCache.getMisses());
+    }
+
+    @Test
+    public void typesWithoutACreateLinkAreLeftOut() {
+        expectContents(1);
+
+        Map<Class, String> routes = router.routes(SUBMISSION);
+
+        assertEquals(2, routes.size());
+        assertFalse(routes.containsKey(Assay.class));
+    }
+
+    @Test
+    public void resetReadsTheContentsAgain() {
+        expectContents(2);
+
+        router.routes(SUBMISSION);
+        router.reset();
+        router.routes(SUBMISSION);
+
+        api.verify();
+    }
+
+    @Test
+    public void withoutTheCacheContentsAreReadForEverySubmission() {
+        router.cacheRoutes = false;
+        expectContents(2);
+
+        router.routes(SUBMISSION);
+        router.routes(SUBMISSION);
+
+        api.verify();
+    }
+
+    private void expectContents(int count) {
+        String contents = "{\"_links\":{"
+                + "\"samples:create\":{\"href\":\"" + SUBMISSION + "/contents/samples\"},"
+                + "\"studies:create\":[{\"href\":\"" + SUBMISSION + "/contents/studies\"}]"
+                + "}}";
+        api.expect(times(count), requestTo(SUBMISSION + "/contents/"))
+                .andRespond(withSuccess(contents, MediaType.APPLICATION_JSON));
+    }
+}
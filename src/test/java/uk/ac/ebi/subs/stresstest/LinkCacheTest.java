@@ -0,0 +1,81 @@
+package uk.ac.ebi.subs.stresstest;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class LinkCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void linkIsLoadedOnceWithinItsTimeToLive() {
+        LinkCache cache = new LinkCache(10, TimeUnit.HOURS.toNanos(1));
+
+        assertEquals("href-a", cache.get("a", () -> load("a")));
+        assertEquals("href-a", cache.get("a", () -> load("a")));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void expiredLinkIsLoadedAgain() throws InterruptedException {
+        LinkCache cache = new LinkCache(10, TimeUnit.MILLISECONDS.toNanos(20));
+
+        cache.get("a", () -> load("a"));
+        Thread.sleep(50);
+        cache.get("a", () -> load("a"));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void leastRecentlyUsedLinkIsEvicted() {
+        LinkCache cache = new LinkCache(2, TimeUnit.HOURS.toNanos(1));
+
+        cache.get("a", () -> load("a"));
+        cache.get("b", () -> load("b"));
+        cache.get("a", () -> load("a"));
+        cache.get("c", () -> load("c"));
+
+        assertEquals(1, cache.getEvictions());
+        cache.get("a", () -> load("a"));
+        assertEquals(3, loads.get());
+        cache.get("b", () -> load("b"));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void linkPutAlongsideAnotherIsAHit() {
+        LinkCache cache = new LinkCache(10, TimeUnit.HOURS.toNanos(1));
+
+        cache.put("a", "href-a");
+
+        assertEquals("href-a", cache.get("a", () -> load("a")));
+        assertEquals(0, loads.get());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void removedLinkIsLoadedAgain() {
+        LinkCache cache = new LinkCache(10, TimeUnit.HOURS.toNanos(1));
+
+        cache.get("a", () -> load("a"));
+        cache.remove("a");
+        cache.get("a", () -> load("a"));
+
+        assertEquals(2, loads.get());
+    }
+
+    private String load(String key) {
+        loads.incrementAndGet();
+        return "href-" + key;
+    }
+}
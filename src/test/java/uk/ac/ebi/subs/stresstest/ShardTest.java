@@ -0,0 +1,46 @@
+package uk.ac.ebi.subs.stresstest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ShardTest {
+
+    @Test
+    public void everyKeyIsInExactlyOneShard() {
+        int count = 4;
+        int[] perShard = new int[count];
+
+        for (int file = 0; file < 1000; file++) {
+            String key = "submissions/submission-" + file + ".json";
+            int shards = 0;
+            for (int index = 0; index < count; index++) {
+                if (new Shard(index, count).contains(key)) {
+                    shards++;
+                    perShard[index]++;
+                }
+            }
+            assertEquals(key, 1, shards);
+        }
+        for (int index = 0; index < count; index++) {
+            assertTrue("shard " + index + " is empty", perShard[index] > 0);
+        }
+    }
+
+    @Test
+    public void allContainsEveryKey() {
+        assertTrue(Shard.ALL.contains("a.json"));
+        assertTrue(Shard.ALL.contains("b.json"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void indexMustBeBelowCount() {
+        new Shard(2, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void countMustBePositive() {
+        new Shard(0, 0);
+    }
+}
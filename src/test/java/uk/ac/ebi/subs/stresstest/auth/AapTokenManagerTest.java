@@ -0,0 +1,158 @@
+package uk.ac.ebi.subs.stresstest.auth;
+
+import org.HdrHistogram.Histogram;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.ac.ebi.subs.stresstest.metrics.LatencyMetrics;
+import uk.ac.ebi.subs.stresstest.metrics.Operations;
+import uk.ac.ebi.subs.stresstest.mock.MockApiServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the token manager against the {@code /auth} endpoint of the mock API.
+ */
+public class AapTokenManagerTest {
+
+    @Rule
+    public TemporaryFolder metricsDir = new TemporaryFolder();
+
+    private LatencyMetrics latencyMetrics;
+    private MockApiServer mockApi;
+    private AapTokenManager tokenManager;
+
+    @Before
+    public void setUp() throws IOException {
+        latencyMetrics = new LatencyMetrics();
+        ReflectionTestUtils.setField(latencyMetrics, "metricsDir", metricsDir.getRoot().toString());
+
+        int port = freePort();
+        mockApi = new MockApiServer();
+        ReflectionTestUtils.setField(mockApi, "enabled", true);
+        ReflectionTestUtils.setField(mockApi, "port", port);
+        ReflectionTestUtils.setField(mockApi, "threads", 2);
+        ReflectionTestUtils.setField(mockApi, "maxSubmissions", 1000);
+        ReflectionTestUtils.setField(mockApi, "tokenTtlSeconds", 3600L);
+        ReflectionTestUtils.setField(mockApi, "basePath", "api");
+        ReflectionTestUtils.setField(mockApi, "latencyMetrics", latencyMetrics);
+        ReflectionTestUtils.invokeMethod(mockApi, "start");
+
+        tokenManager = new AapTokenManager();
+        tokenManager.aapUrl = "http://localhost:" + port + "/auth";
+        tokenManager.aapUsername = "usi-user";
+        tokenManager.aapPassword = "password";
+        tokenManager.identitySpecs = new String[]{"first:password", "second:password"};
+        tokenManager.refreshAheadSeconds = 300;
+        tokenManager.defaultTtlSeconds = 3600;
+        tokenManager.refreshCheckSeconds = 10;
+        tokenManager.restTemplateBuilder = new RestTemplateBuilder();
+        tokenManager.latencyMetrics = latencyMetrics;
+    }
+
+    @After
+    public void tearDown() {
+        tokenManager.stop();
+        ReflectionTestUtils.invokeMethod(mockApi, "stop");
+    }
+
+    @Test
+    public void startingUpFetchesNoTokens() {
+        tokenManager.aapUrl = "http://localhost:" + freePort() + "/auth";
+        tokenManager.readIdentities();
+
+        assertEquals(2, tokenManager.getIdentityCount());
+        assertEquals(0, tokenRequests());
+    }
+
+    @Test
+    public void firstAuthorizationFetchesATokenForEveryIdentity() {
+        tokenManager.readIdentities();
+
+        assertTrue(tokenManager.authorization().startsWith("Bearer "));
+        assertEquals(2, tokenRequests());
+
+        tokenManager.authorization();
+        tokenManager.fetchTokens();
+        assertEquals(2, tokenRequests());
+    }
+
+    @Test
+    public void identitiesDefaultToTheAapUser() {
+        tokenManager.identitySpecs = new String[]{""};
+        tokenManager.readIdentities();
+
+        assertEquals(1, tokenManager.getIdentityCount());
+        tokenManager.fetchTokens();
+        assertEquals(1, tokenRequests());
+    }
+
+    @Test
+    public void boundIdentityIsRestoredAfterTheTask() {
+        tokenManager.readIdentities();
+
+        tokenManager.bind(1, () -> {
+            assertEquals(1, tokenManager.currentIdentity());
+            tokenManager.bindCurrent(() -> assertEquals(1, tokenManager.currentIdentity())).run();
+        }).run();
+        assertEquals(0, tokenManager.currentIdentity());
+    }
+
+    @Test
+    public void identitiesAreHandedOutInTurn() {
+        tokenManager.readIdentities();
+        tokenManager.rotateFrom(1);
+
+        assertEquals(1, tokenManager.nextIdentity());
+        assertEquals(0, tokenManager.nextIdentity());
+        assertEquals(1, tokenManager.nextIdentity());
+    }
+
+    @Test
+    public void expiryIsReadFromAnUnsignedToken() {
+        long exp = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + 60;
+
+        assertEquals(TimeUnit.SECONDS.toMillis(exp), tokenManager.expiresAtMillis(unsignedToken("{\"exp\":" + exp + "}")));
+    }
+
+    @Test
+    public void expiryDefaultsWithoutAnExpClaim() {
+        long before = System.currentTimeMillis();
+        long expiresAtMillis = tokenManager.expiresAtMillis(unsignedToken("{\"sub\":\"usi-user\"}"));
+
+        assertTrue(expiresAtMillis >= before + TimeUnit.SECONDS.toMillis(3600));
+        assertTrue(expiresAtMillis <= System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(3600));
+    }
+
+    private long tokenRequests() {
+        latencyMetrics.sampleInterval();
+        Histogram histogram = latencyMetrics.totals().get(Operations.AUTH_TOKEN);
+        return histogram == null ? 0 : histogram.getTotalCount();
+    }
+
+    private static String unsignedToken(String claims) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8))
+                + "." + encoder.encodeToString(claims.getBytes(StandardCharsets.UTF_8))
+                + ".";
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
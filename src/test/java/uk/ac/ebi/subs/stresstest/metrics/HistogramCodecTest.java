@@ -0,0 +1,46 @@
+package uk.ac.ebi.subs.stresstest.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class HistogramCodecTest {
+
+    @Test
+    public void roundTripKeepsTheRecordedValues() {
+        Histogram histogram = new Histogram(3);
+        for (long millis = 1; millis <= 500; millis++) {
+            histogram.recordValue(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        assertEquals(histogram, HistogramCodec.decode(HistogramCodec.encode(histogram)));
+    }
+
+    @Test
+    public void mergingDecodedWorkerHistogramsMatchesOneHistogram() {
+        Histogram all = new Histogram(3);
+        Histogram first = new Histogram(3);
+        Histogram second = new Histogram(3);
+        for (long millis = 1; millis <= 1000; millis++) {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(millis);
+            all.recordValue(nanos);
+            (millis % 2 == 0 ? first : second).recordValue(nanos);
+        }
+
+        Histogram merged = new Histogram(3);
+        merged.add(HistogramCodec.decode(HistogramCodec.encode(first)));
+        merged.add(HistogramCodec.decode(HistogramCodec.encode(second)));
+
+        assertEquals(all.getTotalCount(), merged.getTotalCount());
+        assertEquals(all.getValueAtPercentile(99), merged.getValueAtPercentile(99));
+        assertEquals(all.getMaxValue(), merged.getMaxValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTextThatIsNotAHistogram() {
+        HistogramCodec.decode("bm90IGEgaGlzdG9ncmFt");
+    }
+}
@@ -0,0 +1,135 @@
+package uk.ac.ebi.subs.stresstest.results;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.ac.ebi.subs.stresstest.metrics.Operations;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BaselineComparisonTest {
+
+    private static final String SAMPLE_CREATE = Operations.itemCreate("samples");
+
+    @Rule
+    public TemporaryFolder results = new TemporaryFolder();
+
+    private BaselineComparison comparison;
+    private Path runDir;
+
+    @Before
+    public void setUp() throws IOException {
+        comparison = new BaselineComparison();
+        comparison.maxP99IncreasePercent = 10;
+        comparison.maxThroughputDecreasePercent = 10;
+        comparison.minCount = 100;
+        comparison.runResults = new RunResults();
+
+        Map<String, RunSummary.OperationSummary> operations = new LinkedHashMap<>();
+        operations.put(SAMPLE_CREATE, operation(1000, 20));
+        operations.put(Operations.SUBMISSION_CREATE, operation(10, 50));
+        comparison.baseline = write("baseline", summary(100, operations)).toString();
+    }
+
+    @Test
+    public void runWithinTheLimitsHasNotRegressed() throws IOException {
+        Map<String, RunSummary.OperationSummary> operations = new LinkedHashMap<>();
+        operations.put(SAMPLE_CREATE, operation(1000, 21.9));
+        operations.put(Operations.SUBMISSION_CREATE, operation(10, 50));
+        runDir = write("run", summary(91, operations));
+
+        assertFalse(comparison.compareIfConfigured(runDir));
+        assertEquals(0, comparison.getExitCode());
+    }
+
+    @Test
+    public void p99IncreaseBeyondTheLimitIsARegression() throws IOException {
+        Map<String, RunSummary.OperationSummary> operations = new LinkedHashMap<>();
+        operations.put(SAMPLE_CREATE, operation(1000, 22.1));
+        runDir = write("run", summary(100, operations));
+
+        assertTrue(comparison.compare(runDir));
+        assertEquals(BaselineComparison.REGRESSION_EXIT_CODE, comparison.getExitCode());
+        assertTrue(csv().contains(SAMPLE_CREATE + " p99_ms,20.000,22.100,10.5,10.0,true"));
+    }
+
+    @Test
+    public void throughputDropBeyondTheLimitIsARegression() throws IOException {
+        Map<String, RunSummary.OperationSummary> operations = new LinkedHashMap<>();
+        operations.put(SAMPLE_CREATE, operation(1000, 20));
+        runDir = write("run", summary(89, operations));
+
+        assertTrue(comparison.compare(runDir));
+        assertEquals(BaselineComparison.REGRESSION_EXIT_CODE, comparison.getExitCode());
+        assertTrue(csv().contains("requests_per_s,100.000,89.000,-11.0,-10.0,true"));
+    }
+
+    @Test
+    public void operationMissingFromTheRunIsARegression() throws IOException {
+        runDir = write("run", summary(100, new LinkedHashMap<>()));
+
+        assertTrue(comparison.compare(runDir));
+        assertTrue(csv().contains(SAMPLE_CREATE + " p99_ms,20.000,,,,true"));
+    }
+
+    @Test
+    public void operationsBelowTheMinimumCountAreNotCompared() throws IOException {
+        Map<String, RunSummary.OperationSummary> operations = new LinkedHashMap<>();
+        operations.put(SAMPLE_CREATE, operation(1000, 20));
+        operations.put(Operations.SUBMISSION_CREATE, operation(10, 500));
+        runDir = write("run", summary(100, operations));
+
+        assertFalse(comparison.compare(runDir));
+        assertFalse(String.join("\n", csv()).contains(Operations.SUBMISSION_CREATE));
+    }
+
+    @Test
+    public void nothingIsComparedWithoutABaseline() {
+        comparison.baseline = "";
+
+        assertFalse(comparison.compareIfConfigured(null));
+        assertEquals(0, comparison.getExitCode());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void baselineNeedsRunResults() {
+        comparison.compareIfConfigured(null);
+    }
+
+    private List<String> csv() throws IOException {
+        return Files.readAllLines(runDir.resolve("comparison.csv"), StandardCharsets.UTF_8);
+    }
+
+    private Path write(String name, RunSummary summary) throws IOException {
+        Path dir = results.newFolder(name).toPath();
+        summary.setName(name);
+        new ObjectMapper().writeValue(dir.resolve("summary.json").toFile(), summary);
+        return dir;
+    }
+
+    private static RunSummary summary(double requestsPerSecond, Map<String, RunSummary.OperationSummary> operations) {
+        RunSummary summary = new RunSummary();
+        summary.setRequestsPerSecond(requestsPerSecond);
+        summary.setOperations(operations);
+        return summary;
+    }
+
+    private static RunSummary.OperationSummary operation(long count, double p99Ms) {
+        RunSummary.OperationSummary operation = new RunSummary.OperationSummary();
+        operation.setCount(count);
+        operation.setP99Ms(p99Ms);
+        return operation;
+    }
+}
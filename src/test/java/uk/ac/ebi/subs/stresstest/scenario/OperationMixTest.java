@@ -0,0 +1,87 @@
+package uk.ac.ebi.subs.stresstest.scenario;
+
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class OperationMixTest {
+
+    @Test
+    public void operationsArePickedInProportionToTheirWeights() {
+        Map<String, Double> weights = new LinkedHashMap<>();
+        weights.put("createSubmission", 1.0);
+        weights.put("getItem", 3.0);
+        weights.put("patchItem", 6.0);
+
+        Map<ScenarioOperation, Integer> picks = pick(new OperationMix(weights), 100_000);
+
+        assertEquals(0.1, picks.get(ScenarioOperation.CREATE_SUBMISSION) / 100_000d, 0.01);
+        assertEquals(0.3, picks.get(ScenarioOperation.GET_ITEM) / 100_000d, 0.01);
+        assertEquals(0.6, picks.get(ScenarioOperation.PATCH_ITEM) / 100_000d, 0.01);
+    }
+
+    @Test
+    public void operationsWithoutWeightAreNeverPicked() {
+        Map<String, Double> weights = new LinkedHashMap<>();
+        weights.put("getSubmission", 0.0);
+        weights.put("getContents", 1.0);
+        weights.put("deleteItem", 0.0);
+
+        Map<ScenarioOperation, Integer> picks = pick(new OperationMix(weights), 10_000);
+
+        assertEquals(10_000, (int) picks.get(ScenarioOperation.GET_CONTENTS));
+        assertFalse(picks.containsKey(ScenarioOperation.GET_SUBMISSION));
+        assertFalse(picks.containsKey(ScenarioOperation.DELETE_ITEM));
+    }
+
+    @Test
+    public void sameSeedPicksTheSameSequence() {
+        Map<String, Double> weights = new LinkedHashMap<>();
+        weights.put("getItem", 1.0);
+        weights.put("updateItem", 1.0);
+        OperationMix mix = new OperationMix(weights);
+
+        Random first = new Random(7);
+        Random second = new Random(7);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(mix.pick(first), mix.pick(second));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsANegativeWeight() {
+        Map<String, Double> weights = new LinkedHashMap<>();
+        weights.put("getItem", 1.0);
+        weights.put("deleteItem", -1.0);
+        new OperationMix(weights);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAMixWithoutAPositiveWeight() {
+        Map<String, Double> weights = new LinkedHashMap<>();
+        weights.put("getItem", 0.0);
+        new OperationMix(weights);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnUnknownOperation() {
+        Map<String, Double> weights = new LinkedHashMap<>();
+        weights.put("listTeams", 1.0);
+        new OperationMix(weights);
+    }
+
+    private static Map<ScenarioOperation, Integer> pick(OperationMix mix, int count) {
+        Random random = new Random(1);
+        Map<ScenarioOperation, Integer> picks = new EnumMap<>(ScenarioOperation.class);
+        for (int i = 0; i < count; i++) {
+            picks.merge(mix.pick(random), 1, Integer::sum);
+        }
+        return picks;
+    }
+}
@@ -0,0 +1,93 @@
+package uk.ac.ebi.subs.stresstest.schedule;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RateSchedulesTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void constantRateDefaultsToPerSecond() {
+        RateSchedule schedule = RateSchedules.parse("constant:100");
+
+        assertTrue(schedule instanceof ConstantRate);
+        assertEquals(100, schedule.ratePerSecond(0), DELTA);
+        assertEquals(100, schedule.ratePerSecond(TimeUnit.HOURS.toNanos(1)), DELTA);
+    }
+
+    @Test
+    public void perMinuteRatesAreConvertedToPerSecond() {
+        assertEquals(2, RateSchedules.parse("constant:120/min").ratePerSecond(0), DELTA);
+        assertEquals(2, RateSchedules.parse("CONSTANT:2/s").ratePerSecond(0), DELTA);
+    }
+
+    @Test
+    public void rampGoesLinearlyFromOneRateToTheOtherAndHolds() {
+        RateSchedule schedule = RateSchedules.parse("ramp:60-600/min:10m");
+
+        assertEquals(1, schedule.ratePerSecond(0), DELTA);
+        assertEquals(5.5, schedule.ratePerSecond(TimeUnit.MINUTES.toNanos(5)), DELTA);
+        assertEquals(10, schedule.ratePerSecond(TimeUnit.MINUTES.toNanos(10)), DELTA);
+        assertEquals(10, schedule.ratePerSecond(TimeUnit.MINUTES.toNanos(30)), DELTA);
+    }
+
+    @Test
+    public void stepsAreHeldInTurnAndTheLastOneAfterwards() {
+        RateSchedule schedule = RateSchedules.parse("step:50,100,200:2m");
+
+        assertEquals(50, schedule.ratePerSecond(0), DELTA);
+        assertEquals(50, schedule.ratePerSecond(TimeUnit.MINUTES.toNanos(2) - 1), DELTA);
+        assertEquals(100, schedule.ratePerSecond(TimeUnit.MINUTES.toNanos(2)), DELTA);
+        assertEquals(200, schedule.ratePerSecond(TimeUnit.MINUTES.toNanos(5)), DELTA);
+        assertEquals(200, schedule.ratePerSecond(TimeUnit.HOURS.toNanos(1)), DELTA);
+    }
+
+    @Test
+    public void ratesAreSplitOnCommas() {
+        assertArrayEquals(new double[]{1, 2.5}, RateSchedules.parseRates("60, 150/min"), DELTA);
+    }
+
+    @Test
+    public void durationsAcceptEachSuffix() {
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(250), RateSchedules.parseDurationNanos("250ms"));
+        assertEquals(TimeUnit.SECONDS.toNanos(30), RateSchedules.parseDurationNanos("30s"));
+        assertEquals(TimeUnit.MINUTES.toNanos(2), RateSchedules.parseDurationNanos(" 2m "));
+        assertEquals(TimeUnit.HOURS.toNanos(1), RateSchedules.parseDurationNanos("1h"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnUnknownScheduleType() {
+        RateSchedules.parse("poisson:100/s");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnUnknownRateUnit() {
+        RateSchedules.parse("constant:100/h");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsARampWithoutARange() {
+        RateSchedules.parse("ramp:100/s:1m");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAMissingDuration() {
+        RateSchedules.parse("step:50,100");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRatesThatAreNotPositive() {
+        RateSchedules.parse("constant:0/s");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnUnknownDurationUnit() {
+        RateSchedules.parseDurationNanos("2d");
+    }
+}